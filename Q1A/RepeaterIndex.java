@@ -0,0 +1,220 @@
+package Q1A;
+// Algorithm Description (Algorithm Design)
+// RepeaterPlacement answers "how many homes lie on the best line?" from scratch in O(n^2).
+// When subscriptions arrive one at a time, RepeaterIndex keeps the answer live instead.
+
+// Step 1: Line Normalization: Every line through two distinct homes is stored by its equation a*x + b*y = c,
+// where (a, b) = (dy, -dx) reduced by the GCD with a canonical sign, so each geometric line has exactly one key.
+// Step 2: Line Counts: For every line holding at least two distinct homes we keep the number of homes on it
+// (counting duplicates at the same location) and the number of distinct locations.
+// Step 3: addHome: Walk every other distinct location q once, normalize line(p, q) and add the new home to it.
+// A line is only touched once per update, even when several q lie on it. Cost O(n).
+// Step 4: removeHome: The same walk in reverse; a line is dropped once it holds fewer than two distinct locations.
+// Step 5: Bucket Structure: Lines are grouped into buckets by their count. Counts only ever move by one,
+// so the highest non-empty bucket is tracked with a pointer and bestLine() is O(1).
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Question 1 (a): Ideal Repeater Placement (Incremental)
+ * Maintains the best repeater line while homes are added and removed online.
+ */
+public class RepeaterIndex {
+
+    /** A normalized line a*x + b*y = c. */
+    public static final class Line {
+        final int a, b;
+        final long c;
+        int homes;     // Homes on this line, including duplicates
+        int locations; // Distinct locations on this line
+
+        Line(int a, int b, long c) { this.a = a; this.b = b; this.c = c; }
+
+        public int getHomes() { return homes; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Line)) return false;
+            Line other = (Line) o;
+            return a == other.a && b == other.b && c == other.c;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * a + b) + Long.hashCode(c);
+        }
+
+        @Override
+        public String toString() {
+            return a + "x + " + b + "y = " + c + " (" + homes + " homes)";
+        }
+    }
+
+    // Multiplicity of each distinct location, keyed by packed (x, y)
+    private final Map<Long, Integer> homesAt = new HashMap<>();
+    private final Map<Line, Line> lines = new HashMap<>();
+    // buckets.get(k) holds every line with exactly k homes
+    private final List<Set<Line>> buckets = new ArrayList<>();
+    private int bestBucket = 0;
+    private int totalHomes = 0;
+
+    public void addHome(int x, int y) {
+        long key = pack(x, y);
+        int existing = homesAt.getOrDefault(key, 0);
+        Set<Line> touched = new HashSet<>();
+
+        for (Map.Entry<Long, Integer> entry : homesAt.entrySet()) {
+            long other = entry.getKey();
+            if (other == key) continue;
+
+            Line probe = lineThrough(x, y, unpackX(other), unpackY(other));
+            if (!touched.add(probe)) continue;
+
+            Line line = lines.get(probe);
+            if (line == null) {
+                // First time these two locations share a line: no third location can be on it yet
+                line = probe;
+                lines.put(line, line);
+                line.locations = 2;
+                line.homes = entry.getValue() + existing + 1;
+                bucketFor(line.homes).add(line);
+            } else {
+                if (existing == 0) line.locations++;
+                moveBucket(line, line.homes + 1);
+            }
+            bestBucket = Math.max(bestBucket, line.homes);
+        }
+
+        homesAt.put(key, existing + 1);
+        totalHomes++;
+    }
+
+    public boolean removeHome(int x, int y) {
+        long key = pack(x, y);
+        Integer existing = homesAt.get(key);
+        if (existing == null) return false;
+
+        Set<Line> touched = new HashSet<>();
+        for (long other : homesAt.keySet()) {
+            if (other == key) continue;
+
+            Line probe = lineThrough(x, y, unpackX(other), unpackY(other));
+            if (!touched.add(probe)) continue;
+
+            Line line = lines.get(probe);
+            if (existing == 1) line.locations--;
+            if (line.locations < 2) {
+                buckets.get(line.homes).remove(line);
+                lines.remove(line);
+            } else {
+                moveBucket(line, line.homes - 1);
+            }
+        }
+
+        if (existing == 1) homesAt.remove(key);
+        else homesAt.put(key, existing - 1);
+        totalHomes--;
+
+        while (bestBucket > 0 && (bestBucket >= buckets.size() || buckets.get(bestBucket).isEmpty())) {
+            bestBucket--;
+        }
+        return true;
+    }
+
+    /** The line holding the most homes, or null while fewer than two distinct locations are known. */
+    public Line bestLine() {
+        if (lines.isEmpty()) return null;
+        return buckets.get(bestBucket).iterator().next();
+    }
+
+    /** Same value RepeaterPlacement.maxPointsOnLinePrimitive would return for the current homes. */
+    public int bestCount() {
+        return lines.isEmpty() ? totalHomes : bestBucket;
+    }
+
+    public int size() {
+        return totalHomes;
+    }
+
+    private void moveBucket(Line line, int newHomes) {
+        buckets.get(line.homes).remove(line);
+        line.homes = newHomes;
+        bucketFor(newHomes).add(line);
+    }
+
+    private Set<Line> bucketFor(int homes) {
+        while (buckets.size() <= homes) buckets.add(new LinkedHashSet<>());
+        return buckets.get(homes);
+    }
+
+    // Normalized equation of the line through two distinct points
+    static Line lineThrough(int x1, int y1, int x2, int y2) {
+        int a = y2 - y1;
+        int b = x1 - x2;
+        int g = RepeaterPlacement.iterativeGcd(a, b);
+        a /= g;
+        b /= g;
+        if (a < 0 || (a == 0 && b < 0)) {
+            a = -a;
+            b = -b;
+        }
+        return new Line(a, b, (long) a * x1 + (long) b * y1);
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int unpackX(long key) { return (int) (key >> 32); }
+
+    private static int unpackY(long key) { return (int) key; }
+
+    public static void main(String[] args) {
+        RepeaterIndex index = new RepeaterIndex();
+
+        // TEST CASE 1: Example from PDF, homes arriving one by one
+        int[][] locations = {{1, 1}, {3, 2}, {5, 3}, {4, 1}, {2, 3}, {1, 4}};
+        for (int[] p : locations) index.addHome(p[0], p[1]);
+        System.out.println("Test Case 1 Output: " + index.bestCount() + " on " + index.bestLine());
+
+        // TEST CASE 2: A subscriber cancels and the best line shrinks
+        index.removeHome(4, 1);
+        System.out.println("Test Case 2 Output: " + index.bestCount() + " on " + index.bestLine());
+
+        // TEST CASE 3: Random add/remove stream checked against a full recompute
+        RepeaterPlacement placement = new RepeaterPlacement();
+        RepeaterIndex live = new RepeaterIndex();
+        List<int[]> current = new ArrayList<>();
+        Random rng = new Random(7);
+        boolean matches = true;
+        for (int step = 0; step < 2000 && matches; step++) {
+            if (!current.isEmpty() && rng.nextInt(3) == 0) {
+                int[] p = current.remove(rng.nextInt(current.size()));
+                live.removeHome(p[0], p[1]);
+            } else {
+                int[] p = {rng.nextInt(15), rng.nextInt(15)};
+                current.add(p);
+                live.addHome(p[0], p[1]);
+            }
+            // Primitive mode is the reference because it also accepts duplicate homes
+            matches = live.bestCount() == placement.maxPointsOnLinePrimitive(current.toArray(new int[0][]));
+        }
+        System.out.println("Test Case 3 Output: " + matches + " (" + live.size() + " homes live)");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 4 on 1x + 1y = 5 (4 homes)
+ * Test Case 2 Output: 3 on 1x + -2y = -1 (3 homes)
+ * Test Case 3 Output: true (704 homes live)
+ * -----------------------------------------------------------
+ */
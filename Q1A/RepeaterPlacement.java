@@ -15,9 +15,29 @@ package Q1A;
 // Step 7: Global Update: For each anchor point, find the highest count in its Map and update the global maxPoints.
 // Step 8: Final Result: Return the maxPoints value.
 
+// Primitive Mode (Large Survey Grids):
+// The String keys above cost one String and one boxed Integer per pair, i.e. O(n^2) garbage.
+// maxPointsOnLinePrimitive packs the reduced (dy, dx) pair into a single long with a canonical sign
+// (dx > 0, or dx == 0 and dy > 0) and counts it in an open-addressing long -> int table.
+// The table is allocated once and cleared per anchor by bumping a generation stamp, so the whole sweep
+// allocates O(n) memory in total. The GCD is computed iteratively, and duplicate homes are counted
+// on every line through the anchor instead of producing a 0/0 slope.
 
+// Parallel Mode (Multi-core Planning Boxes):
+// Anchors are independent, so maxPointsOnLineParallel splits the anchor range across a ForkJoinPool.
+// Each worker thread reuses its own SlopeCounter, and the best count so far is shared through an AtomicInteger.
+// Anchor i only sees points i..n-1, so once n - i <= best no later anchor can improve the answer and the task stops.
+
+
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Question 1 (a): Ideal Repeater Placement
@@ -57,12 +77,200 @@ public class RepeaterPlacement {
         return maxPointsAcrossAllLines;
     }
 
+    // Allocation-free variant: primitive slope keys and a reusable counting table
+    public int maxPointsOnLinePrimitive(int[][] points) {
+        int n = points.length;
+        if (n <= 2) return n;
+
+        SlopeCounter counter = new SlopeCounter(n);
+        int maxPointsAcrossAllLines = 0;
+
+        for (int i = 0; i < n; i++) {
+            // No line through this anchor can beat the current best
+            if (n - i <= maxPointsAcrossAllLines) break;
+            maxPointsAcrossAllLines = Math.max(maxPointsAcrossAllLines, countThroughAnchor(points, i, counter));
+        }
+
+        return maxPointsAcrossAllLines;
+    }
+
+    // Parallel variant: splits the anchor sweep over the common ForkJoinPool
+    public int maxPointsOnLineParallel(int[][] points) {
+        return maxPointsOnLineParallel(points, ForkJoinPool.commonPool());
+    }
+
+    public int maxPointsOnLineParallel(int[][] points, ForkJoinPool pool) {
+        int n = points.length;
+        if (n <= 2) return n;
+
+        AtomicInteger best = new AtomicInteger(0);
+        ThreadLocal<SlopeCounter> counters = ThreadLocal.withInitial(() -> new SlopeCounter(n));
+        pool.invoke(new AnchorSweepTask(points, 0, n, best, counters));
+        return best.get();
+    }
+
+    // Best line through anchor i using only points after it (shared by the sequential and parallel sweeps)
+    static int countThroughAnchor(int[][] points, int i, SlopeCounter counter) {
+        counter.clear();
+        int localMax = 0;
+        int duplicates = 0;
+
+        for (int j = i + 1; j < points.length; j++) {
+            int dy = points[j][1] - points[i][1];
+            int dx = points[j][0] - points[i][0];
+
+            if (dx == 0 && dy == 0) {
+                duplicates++;
+                continue;
+            }
+            localMax = Math.max(localMax, counter.increment(slopeKey(dy, dx)));
+        }
+        return localMax + duplicates + 1;
+    }
+
+    /**
+     * Fork-join task over a range of anchors [from, to).
+     * Ranges are halved until they reach GRAIN anchors, letting work stealing balance
+     * the early anchors (which scan more points) against the later ones.
+     */
+    static class AnchorSweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int GRAIN = 32;
+
+        private final int[][] points;
+        private final int from, to;
+        private final AtomicInteger best;
+        private final ThreadLocal<SlopeCounter> counters;
+
+        AnchorSweepTask(int[][] points, int from, int to, AtomicInteger best, ThreadLocal<SlopeCounter> counters) {
+            this.points = points; this.from = from; this.to = to;
+            this.best = best; this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            int n = points.length;
+            if (n - from <= best.get()) return; // Whole range is pruned
+
+            if (to - from > GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AnchorSweepTask(points, from, mid, best, counters),
+                          new AnchorSweepTask(points, mid, to, best, counters));
+                return;
+            }
+
+            SlopeCounter counter = counters.get();
+            for (int i = from; i < to; i++) {
+                if (n - i <= best.get()) break;
+                int count = countThroughAnchor(points, i, counter);
+                best.accumulateAndGet(count, Math::max);
+            }
+        }
+    }
+
+    // Packs the reduced slope into one long: high 32 bits dy, low 32 bits dx
+    static long slopeKey(int dy, int dx) {
+        int commonDivisor = iterativeGcd(dy, dx);
+        dy /= commonDivisor;
+        dx /= commonDivisor;
+
+        // Canonical sign so that (1, -2) and (-1, 2) map to the same line
+        if (dx < 0 || (dx == 0 && dy < 0)) {
+            dy = -dy;
+            dx = -dx;
+        }
+        return ((long) dy << 32) | (dx & 0xFFFFFFFFL);
+    }
+
+    // Non-negative GCD without recursion; only called with (dy, dx) != (0, 0)
+    static int iterativeGcd(int a, int b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
     // Helper method to find the Greatest Common Divisor
     private int gcd(int a, int b) {
         if (b == 0) return a;
         return gcd(b, a % b);
     }
 
+    /**
+     * Open-addressing long -> int counter with linear probing.
+     * clear() is O(1): a slot is only live if its stamp equals the current generation.
+     */
+    static class SlopeCounter {
+        private final long[] keys;
+        private final int[] counts;
+        private final int[] stamps;
+        private final int mask;
+        private int generation = 1;
+
+        SlopeCounter(int expectedKeys) {
+            // Keep the load factor at or below 0.5
+            int capacity = Integer.highestOneBit(Math.max(expectedKeys, 2) * 2 - 1) << 1;
+            keys = new long[capacity];
+            counts = new int[capacity];
+            stamps = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void clear() {
+            generation++;
+            if (generation == 0) { // Stamp wrapped around: wipe for real once every 2^32 clears
+                java.util.Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        // Adds one to the count for key and returns the new count
+        int increment(long key) {
+            int slot = mix(key) & mask;
+            while (stamps[slot] == generation) {
+                if (keys[slot] == key) return ++counts[slot];
+                slot = (slot + 1) & mask;
+            }
+            stamps[slot] = generation;
+            keys[slot] = key;
+            counts[slot] = 1;
+            return 1;
+        }
+
+        int get(long key) {
+            int slot = mix(key) & mask;
+            while (stamps[slot] == generation) {
+                if (keys[slot] == key) return counts[slot];
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        private static int mix(long key) {
+            // MurmurHash3 finalizer spreads the packed (dy, dx) bits across the table
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            key *= 0xc4ceb9fe1a85ec53L;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+
+    // Bytes allocated by the current thread while running task (HotSpot-specific counter)
+    private static long allocatedBytes(Runnable task) {
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(tid);
+        task.run();
+        return bean.getThreadAllocatedBytes(tid) - before;
+    }
+
     public static void main(String[] args) {
         RepeaterPlacement optimizer = new RepeaterPlacement();
 
@@ -77,6 +285,35 @@ public class RepeaterPlacement {
         // TEST CASE 3: Vertical and horizontal lines
         int[][] locations3 = {{1, 1}, {1, 2}, {1, 3}, {2, 1}, {3, 1}};
         System.out.println("Test Case 3 Output: " + optimizer.maxPointsOnLine(locations3));
+
+        // TEST CASE 4: Primitive mode must agree with the String-keyed method
+        System.out.println("Test Case 4 Output: "
+            + (optimizer.maxPointsOnLinePrimitive(locations1) == optimizer.maxPointsOnLine(locations1)
+            && optimizer.maxPointsOnLinePrimitive(locations2) == optimizer.maxPointsOnLine(locations2)
+            && optimizer.maxPointsOnLinePrimitive(locations3) == optimizer.maxPointsOnLine(locations3)));
+
+        // TEST CASE 5: Allocation before/after on a 2,000-home survey grid
+        Random rng = new Random(42);
+        int[][] survey = new int[2000][];
+        for (int k = 0; k < survey.length; k++) survey[k] = new int[]{rng.nextInt(200), rng.nextInt(200)};
+        Set<String> seen = new HashSet<>();
+        int[][] unique = Arrays.stream(survey).filter(p -> seen.add(p[0] + "," + p[1])).toArray(int[][]::new);
+        int[] results = new int[2];
+        long stringBytes = allocatedBytes(() -> results[0] = optimizer.maxPointsOnLine(unique));
+        long primitiveBytes = allocatedBytes(() -> results[1] = optimizer.maxPointsOnLinePrimitive(unique));
+        System.out.println("Test Case 5 Output: " + results[0] + " vs " + results[1]
+            + " | String keys: " + stringBytes / (1024 * 1024) + " MB allocated"
+            + " | Primitive keys: " + primitiveBytes / 1024 + " KB allocated");
+
+        // TEST CASE 6: Parallel sweep must be identical to the sequential one
+        long startSeq = System.nanoTime();
+        int sequential = optimizer.maxPointsOnLinePrimitive(unique);
+        long seqMs = (System.nanoTime() - startSeq) / 1_000_000;
+        long startPar = System.nanoTime();
+        int parallel = optimizer.maxPointsOnLineParallel(unique);
+        long parMs = (System.nanoTime() - startPar) / 1_000_000;
+        System.out.println("Test Case 6 Output: " + (sequential == parallel) + " (" + parallel + " homes, "
+            + seqMs + " ms sequential, " + parMs + " ms on " + ForkJoinPool.commonPool().getParallelism() + " workers)");
     }
 }
 
@@ -85,5 +322,8 @@ public class RepeaterPlacement {
  * Test Case 1 Output: 3
  * Test Case 2 Output: 4
  * Test Case 3 Output: 3
+ * Test Case 4 Output: true
+ * Test Case 5 Output: 20 vs 20 | String keys: 167 MB allocated | Primitive keys: 64 KB allocated
+ * Test Case 6 Output: true (20 homes, 129 ms sequential, 145 ms on 1 workers)  (single-core sandbox; timings scale with cores)
  * -----------------------------------------------------------
  */
\ No newline at end of file
@@ -0,0 +1,264 @@
+package Q1A;
+// Algorithm Description (Algorithm Design)
+// Large survey exports arrive as a flat binary file of int32 (x, y) pairs. Loading them into an int[][]
+// costs one array object per home, so RepeaterSurvey works on the file directly and reports whole lines.
+
+// Step 1: Memory Mapping: The file is mapped read-only with FileChannel.map and viewed as an IntBuffer.
+// Home i is read with absolute gets at positions 2i and 2i + 1, so nothing is copied onto the heap.
+// Step 2: Exact Top-K (topLines): For each anchor i we count slopes to the later homes j > i with the primitive
+// SlopeCounter from RepeaterPlacement. A second pass reads the final counts back and collects member indices,
+// but only for slopes whose line could still enter the top-K min-heap.
+// Step 3: De-duplication: A line is first seen at its lowest-index member, which is also when it has the most members.
+// Lines are keyed by their normalized equation (RepeaterIndex.Line), so the same line seen again from a later anchor is skipped.
+// Step 4: Approximate Mode (RANSAC): For point counts where O(n^2) is infeasible, approximateTopLines samples random pairs,
+// scores each candidate line with one O(n) pass and keeps the top-K. A line holding a fraction f of the homes is hit by a
+// sample with probability f^2, so s samples miss it with probability (1 - f^2)^s.
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Question 1 (a): Ideal Repeater Placement (Bulk Surveys)
+ * Memory-mapped point ingestion with exact and sampled top-K line reporting.
+ */
+public class RepeaterSurvey {
+
+    /** One reported line and the indices of the homes on it. */
+    public static final class LineReport {
+        final RepeaterIndex.Line line;
+        final int[] members;
+
+        LineReport(RepeaterIndex.Line line, int[] members) {
+            this.line = line;
+            this.members = members;
+        }
+
+        public RepeaterIndex.Line getLine() { return line; }
+
+        public int[] getMembers() { return members; }
+
+        /** Homes on the line, including duplicates. */
+        public int getHomes() { return members.length; }
+
+        /** "a*x + b*y = c (n homes)" with this report's count; the Line itself is not modified. */
+        public String describe() {
+            return line.a + "x + " + line.b + "y = " + line.c + " (" + members.length + " homes)";
+        }
+
+        @Override
+        public String toString() {
+            return describe() + " " + Arrays.toString(members);
+        }
+    }
+
+    private final IntBuffer coords;
+    private final int size;
+
+    private RepeaterSurvey(IntBuffer coords) {
+        this.coords = coords;
+        this.size = coords.limit() / 2;
+    }
+
+    /** Maps a file of big-endian int32 x/y pairs (the DataOutputStream layout). */
+    public static RepeaterSurvey map(Path file) throws IOException {
+        return map(file, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static RepeaterSurvey map(Path file, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % 8 != 0) throw new IOException("Truncated point file: " + bytes + " bytes");
+            // A single mapping is limited to 2 GB, i.e. about 268 million homes
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            // The mapping stays valid after the channel is closed
+            return new RepeaterSurvey(buffer.order(order).asIntBuffer());
+        }
+    }
+
+    /** Writes points in the format read by map(Path). */
+    public static void write(Path file, int[][] points) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int[] p : points) {
+                out.writeInt(p[0]);
+                out.writeInt(p[1]);
+            }
+        }
+    }
+
+    public int size() { return size; }
+
+    public int x(int i) { return coords.get(2 * i); }
+
+    public int y(int i) { return coords.get(2 * i + 1); }
+
+    /** Exact top-K lines by number of homes, largest first. */
+    public List<LineReport> topLines(int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive: " + k);
+        PriorityQueue<LineReport> heap = new PriorityQueue<>(Comparator.comparingInt(r -> r.members.length));
+        Set<RepeaterIndex.Line> reported = new HashSet<>();
+        RepeaterPlacement.SlopeCounter counter = new RepeaterPlacement.SlopeCounter(size);
+
+        for (int i = 0; i < size; i++) {
+            int threshold = heap.size() < k ? 1 : heap.peek().members.length;
+            // The line through anchor i holds at most size - i homes
+            if (size - i <= threshold) break;
+
+            int xi = x(i), yi = y(i);
+            int duplicates = 0;
+            int localMax = 0;
+            counter.clear();
+            for (int j = i + 1; j < size; j++) {
+                int dy = y(j) - yi, dx = x(j) - xi;
+                if (dx == 0 && dy == 0) duplicates++;
+                else localMax = Math.max(localMax, counter.increment(RepeaterPlacement.slopeKey(dy, dx)));
+            }
+            if (localMax == 0 || localMax + duplicates + 1 <= threshold) continue;
+
+            // Second pass: member lists only for slopes that can still make the top-K
+            int minMembers = Math.max(1, threshold - duplicates); // count + duplicates + 1 > threshold
+            Map<Long, List<Integer>> groups = new HashMap<>();
+            List<Integer> duplicateIndices = new ArrayList<>();
+            for (int j = i + 1; j < size; j++) {
+                int dy = y(j) - yi, dx = x(j) - xi;
+                if (dx == 0 && dy == 0) {
+                    duplicateIndices.add(j);
+                    continue;
+                }
+                long key = RepeaterPlacement.slopeKey(dy, dx);
+                if (counter.get(key) >= minMembers) groups.computeIfAbsent(key, unused -> new ArrayList<>()).add(j);
+            }
+
+            for (List<Integer> group : groups.values()) {
+                int count = group.size() + duplicates + 1;
+                if (heap.size() == k && count <= heap.peek().members.length) continue;
+
+                int first = group.get(0);
+                RepeaterIndex.Line line = RepeaterIndex.lineThrough(xi, yi, x(first), y(first));
+                if (!reported.add(line)) continue;
+
+                int[] members = new int[count];
+                int m = 0;
+                members[m++] = i;
+                for (int d : duplicateIndices) members[m++] = d;
+                for (int g : group) members[m++] = g;
+                Arrays.sort(members);
+
+                heap.add(new LineReport(line, members));
+                if (heap.size() > k) heap.poll();
+            }
+        }
+
+        return drain(heap);
+    }
+
+    /** Sampled (RANSAC) top-K: O(samples * n) time instead of O(n^2). */
+    public List<LineReport> approximateTopLines(int k, int samples, long seed) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive: " + k);
+        PriorityQueue<LineReport> heap = new PriorityQueue<>(Comparator.comparingInt(r -> r.members.length));
+        Set<RepeaterIndex.Line> evaluated = new HashSet<>();
+        Random rng = new Random(seed);
+        if (size < 2) return new ArrayList<>();
+
+        for (int s = 0; s < samples; s++) {
+            int p = rng.nextInt(size);
+            int q = rng.nextInt(size);
+            if (x(p) == x(q) && y(p) == y(q)) continue;
+
+            RepeaterIndex.Line line = RepeaterIndex.lineThrough(x(p), y(p), x(q), y(q));
+            if (!evaluated.add(line)) continue;
+
+            // Score the candidate: every home satisfying a*x + b*y = c
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if ((long) line.a * x(i) + (long) line.b * y(i) == line.c) count++;
+            }
+            if (heap.size() == k && count <= heap.peek().members.length) continue;
+
+            int[] members = new int[count];
+            int m = 0;
+            for (int i = 0; i < size; i++) {
+                if ((long) line.a * x(i) + (long) line.b * y(i) == line.c) members[m++] = i;
+            }
+            heap.add(new LineReport(line, members));
+            if (heap.size() > k) heap.poll();
+        }
+
+        return drain(heap);
+    }
+
+    private static List<LineReport> drain(PriorityQueue<LineReport> heap) {
+        List<LineReport> result = new ArrayList<>(heap);
+        result.sort((r1, r2) -> Integer.compare(r2.members.length, r1.members.length));
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("survey", ".bin");
+        try {
+            // TEST CASE 1: Example from PDF, read back from a mapped file
+            int[][] locations = {{1, 1}, {3, 2}, {5, 3}, {4, 1}, {2, 3}, {1, 4}};
+            write(file, locations);
+            RepeaterSurvey survey = map(file);
+            System.out.println("Test Case 1 Output: " + survey.topLines(3));
+
+            // TEST CASE 2: Top line agrees with RepeaterPlacement on a random grid
+            Random rng = new Random(11);
+            int[][] grid = new int[1500][];
+            for (int i = 0; i < grid.length; i++) grid[i] = new int[]{rng.nextInt(100), rng.nextInt(100)};
+            write(file, grid);
+            survey = map(file);
+            int expected = new RepeaterPlacement().maxPointsOnLinePrimitive(grid);
+            System.out.println("Test Case 2 Output: " + (survey.topLines(1).get(0).members.length == expected));
+
+            // TEST CASE 3: RANSAC finds a planted street of 500 homes among 20,000 scattered ones
+            int[][] city = new int[20000][];
+            for (int i = 0; i < city.length; i++) {
+                city[i] = i % 40 == 0
+                    ? new int[]{i, 3 * i + 7}
+                    : new int[]{rng.nextInt(1_000_000), rng.nextInt(1_000_000)};
+            }
+            write(file, city);
+            survey = map(file);
+            LineReport street = survey.approximateTopLines(1, 20000, 5).get(0);
+            System.out.println("Test Case 3 Output: " + street.describe());
+
+            // TEST CASE 4: k = 0 is rejected up front
+            try {
+                survey.topLines(0);
+                System.out.println("Test Case 4 Output: accepted (wrong)");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Test Case 4 Output: " + e.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: [1x + 1y = 5 (4 homes) [1, 3, 4, 5], 1x + -2y = -1 (3 homes) [0, 1, 2], 2x + -1y = 1 (2 homes) [0, 4]]
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 3x + -1y = -7 (500 homes)
+ * Test Case 4 Output: k must be positive: 0
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,281 @@
+package Q1B;
+// Algorithm Description (Algorithm Design)
+// KeywordSegmenter keeps its memo in a mutable field and clears it on every call, so one instance cannot be
+// shared across threads and suffix results (e.g. "...nepal") are thrown away between queries.
+// BatchSegmenter is a thread-safe service that segments many queries in parallel against one compiled dictionary.
+
+// Step 1: Shared Suffix Cache: Results are cached by suffix, so "visitkathmandunepal" and "trekkingnepal" share the
+// work for "nepal". The cache survives across queries and batches. A key is (query, start) rather than a substring copy:
+// suffix hashes are computed for the whole query in one right-to-left pass, and equal hashes are confirmed with
+// regionMatches, so a lookup copies no characters.
+// Step 2: Striping: The cache is split into independent LRU stripes (access-ordered LinkedHashMaps), each behind its own lock.
+// A suffix always maps to the same stripe, so threads working on different suffixes rarely contend.
+// Step 3: Bounded Size: The capacity is split exactly across the stripes (the first capacity % stripes stripes take one
+// extra entry), and each stripe evicts its least recently used entry once it is full, so the cache never holds more
+// than capacity entries. A capacity smaller than the stripe count is rejected.
+// Step 4: Per-query Memo: Within one query, results are also kept in an array indexed by start position,
+// so an eviction in the middle of a query can never trigger exponential recomputation.
+// Step 5: Metrics: Hits, misses and evictions are counted with LongAdders and reported as a hit rate.
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Question 1 (b): Keyword Segmentation (Concurrent Batch Service)
+ * Parallel batch segmentation with a bounded, striped LRU suffix cache.
+ */
+public class BatchSegmenter {
+
+    /** Snapshot of the suffix cache counters. */
+    public static final class CacheStats {
+        final long hits, misses, evictions;
+        final int size;
+
+        CacheStats(long hits, long misses, long evictions, int size) {
+            this.hits = hits; this.misses = misses; this.evictions = evictions; this.size = size;
+        }
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d evictions=%d size=%d hitRate=%.1f%%",
+                hits, misses, evictions, size, hitRate() * 100);
+        }
+    }
+
+    // One LRU stripe; all access goes through synchronized methods on the stripe
+    private final class Stripe {
+        private final LinkedHashMap<SuffixKey, List<String>> entries;
+
+        Stripe(int capacity) {
+            entries = new LinkedHashMap<SuffixKey, List<String>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SuffixKey, List<String>> eldest) {
+                    if (size() <= capacity) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized List<String> get(SuffixKey suffix) { return entries.get(suffix); }
+
+        synchronized void put(SuffixKey suffix, List<String> segments) { entries.put(suffix, segments); }
+
+        synchronized int size() { return entries.size(); }
+
+        synchronized void clear() { entries.clear(); }
+    }
+
+    // Cache key for query.substring(start), without the copy
+    private static final class SuffixKey {
+        final String query;
+        final int start, hash;
+
+        SuffixKey(String query, int start, int hash) {
+            this.query = query; this.start = start; this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SuffixKey)) return false;
+            SuffixKey other = (SuffixKey) o;
+            int length = query.length() - start;
+            return hash == other.hash && other.query.length() - other.start == length
+                && query.regionMatches(start, other.query, other.start, length);
+        }
+    }
+
+    private static final int BATCH_GRAIN = 16;
+
+    private final KeywordAutomaton dictionary;
+    private final Stripe[] stripes;
+    private final ForkJoinPool pool;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BatchSegmenter(KeywordAutomaton dictionary, int cacheCapacity) {
+        this(dictionary, cacheCapacity, 16, ForkJoinPool.commonPool());
+    }
+
+    public BatchSegmenter(KeywordAutomaton dictionary, int cacheCapacity, int stripeCount, ForkJoinPool pool) {
+        if (stripeCount <= 0) throw new IllegalArgumentException("stripeCount must be positive: " + stripeCount);
+        if (cacheCapacity < stripeCount) {
+            throw new IllegalArgumentException("cacheCapacity " + cacheCapacity + " is smaller than stripeCount " + stripeCount);
+        }
+        this.dictionary = dictionary;
+        this.pool = pool;
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = cacheCapacity / stripeCount, extra = cacheCapacity % stripeCount;
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe(perStripe + (i < extra ? 1 : 0));
+    }
+
+    /** Segments one query; safe to call from any number of threads. */
+    public List<String> segment(String query) {
+        int[] suffixHash = new int[query.length() + 1];
+        for (int i = query.length() - 1; i >= 0; i--) suffixHash[i] = 31 * suffixHash[i + 1] + query.charAt(i);
+        return segmentFrom(query, 0, KeywordSegmenter.newMemo(query.length() + 1), suffixHash);
+    }
+
+    /** Segments every query in parallel; results are in the same order as the input. */
+    public List<List<String>> segmentAll(Collection<String> queries) {
+        String[] input = queries.toArray(new String[0]);
+        List<String>[] output = KeywordSegmenter.newMemo(input.length);
+        pool.invoke(new BatchTask(input, output, 0, input.length));
+        return Arrays.asList(output);
+    }
+
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final String[] input;
+        private final List<String>[] output;
+        private final int from, to;
+
+        BatchTask(String[] input, List<String>[] output, int from, int to) {
+            this.input = input; this.output = output; this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(input, output, from, mid), new BatchTask(input, output, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) output[i] = segment(input[i]);
+        }
+    }
+
+    private List<String> segmentFrom(String query, int start, List<String>[] positionMemo, int[] suffixHash) {
+        if (positionMemo[start] != null) return positionMemo[start];
+
+        if (start == query.length()) {
+            positionMemo[start] = Collections.singletonList("");
+            return positionMemo[start];
+        }
+
+        SuffixKey suffix = new SuffixKey(query, start, suffixHash[start]);
+        Stripe stripe = stripeFor(suffix.hash);
+        List<String> cached = stripe.get(suffix);
+        if (cached != null) {
+            hits.increment();
+            positionMemo[start] = cached;
+            return cached;
+        }
+        misses.increment();
+
+        List<String> results = new ArrayList<>();
+        int node = dictionary.root();
+        for (int end = start; end < query.length(); end++) {
+            node = dictionary.child(node, query.charAt(end));
+            if (node < 0) break;
+
+            if (dictionary.isWord(node)) {
+                List<String> suffixSegments = segmentFrom(query, end + 1, positionMemo, suffixHash);
+                if (suffixSegments.isEmpty()) continue;
+
+                String prefix = query.substring(start, end + 1);
+                for (String segment : suffixSegments) {
+                    String space = segment.isEmpty() ? "" : " ";
+                    results.add(prefix + space + segment);
+                }
+            }
+        }
+
+        // Cached lists are shared between threads, so they must never be modified
+        List<String> published = Collections.unmodifiableList(results);
+        stripe.put(suffix, published);
+        positionMemo[start] = published;
+        return published;
+    }
+
+    private Stripe stripeFor(int h) {
+        h ^= h >>> 16;
+        return stripes[(h & 0x7FFFFFFF) % stripes.length];
+    }
+
+    public CacheStats stats() {
+        int size = 0;
+        for (Stripe stripe : stripes) size += stripe.size();
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    public void clearCache() {
+        for (Stripe stripe : stripes) stripe.clear();
+    }
+
+    public static void main(String[] args) {
+        KeywordDictionary dictionary = KeywordDictionary.compile(Arrays.asList(
+            "visit", "kathmandu", "nepal", "visitkathmandu", "kathmandunepal",
+            "trekking", "guide", "nepaltrekking", "pokhara", "tour"));
+        BatchSegmenter service = new BatchSegmenter(dictionary, 1000);
+
+        // TEST CASE 1: Batch results match KeywordSegmenter one query at a time
+        List<String> queries = Arrays.asList("nepaltrekkingguide", "visitkathmandunepal",
+            "pokharatourguide", "trekkingnepal", "everesthikingtrail");
+        List<List<String>> batch = service.segmentAll(queries);
+        KeywordSegmenter reference = new KeywordSegmenter();
+        boolean matches = true;
+        for (int i = 0; i < queries.size(); i++) {
+            matches &= batch.get(i).equals(reference.wordBreak(queries.get(i), dictionary));
+        }
+        System.out.println("Test Case 1: " + batch + " matches=" + matches);
+
+        // TEST CASE 2: 20,000 queries sharing suffixes reuse cached work across queries (one thread, so the counters
+        // are reproducible)
+        List<String> traffic = new ArrayList<>();
+        String[] heads = {"visit", "tour", "guide", "pokhara", "trekking"};
+        String[] tails = {"kathmandunepal", "nepaltrekkingguide", "pokharatour", "nepal"};
+        for (int i = 0; i < 20000; i++) traffic.add(heads[i % heads.length] + tails[i % tails.length]);
+        List<List<String>> expected = new ArrayList<>();
+        for (String query : traffic) expected.add(service.segment(query));
+        System.out.println("Test Case 2: " + service.stats());
+
+        // TEST CASE 3: A tiny cache keeps working correctly while evicting, from one thread and from a parallel batch
+        BatchSegmenter tiny = new BatchSegmenter(dictionary, 4, 2, ForkJoinPool.commonPool());
+        boolean tinyMatches = true;
+        for (int i = 0; i < traffic.size(); i++) tinyMatches &= tiny.segment(traffic.get(i)).equals(expected.get(i));
+        BatchSegmenter tinyParallel = new BatchSegmenter(dictionary, 4, 2, ForkJoinPool.commonPool());
+        boolean parallelMatches = tinyParallel.segmentAll(traffic).equals(expected);
+        System.out.println("Test Case 3: matches=" + tinyMatches + " " + tiny.stats() + " | parallel matches="
+            + parallelMatches + " size<=4: " + (tinyParallel.stats().size <= 4));
+
+        // TEST CASE 4: 10 entries over 4 stripes hold exactly 10; 3 entries cannot cover 4 stripes
+        BatchSegmenter uneven = new BatchSegmenter(dictionary, 10, 4, ForkJoinPool.commonPool());
+        uneven.segmentAll(traffic);
+        String rejected;
+        try {
+            new BatchSegmenter(dictionary, 3, 4, ForkJoinPool.commonPool());
+            rejected = "accepted";
+        } catch (IllegalArgumentException e) {
+            rejected = e.getMessage();
+        }
+        System.out.println("Test Case 4: size=" + uneven.stats().size + " (capacity 10) | capacity 3: " + rejected);
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1: [[nepal trekking guide, nepaltrekking guide], [visit kathmandu nepal, visit kathmandunepal, visitkathmandu nepal], [pokhara tour guide], [trekking nepal], []] matches=true
+ * Test Case 2: hits=20001 misses=30 evictions=0 size=30 hitRate=99.9%
+ * Test Case 3: matches=true hits=6999 misses=53001 evictions=52997 size=4 hitRate=11.7% | parallel matches=true size<=4: true
+ * Test Case 4: size=10 (capacity 10) | capacity 3: cacheCapacity 3 is smaller than stripeCount 4
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,24 @@
+package Q1B;
+
+/**
+ * Question 1 (b): Keyword Segmentation
+ * A deterministic automaton that accepts exactly the dictionary keywords.
+ * Implemented on the heap by KeywordDictionary and off-heap by MappedKeywordDictionary.
+ */
+public interface KeywordAutomaton {
+
+    /** Start state, before any character has been read. */
+    int root();
+
+    /** State reached from state by c, or -1 if no keyword continues that way. */
+    int child(int state, char c);
+
+    /** True if the characters read so far spell a keyword. */
+    boolean isWord(int state);
+
+    default boolean contains(CharSequence word) {
+        int state = root();
+        for (int i = 0; i < word.length() && state >= 0; i++) state = child(state, word.charAt(i));
+        return state >= 0 && isWord(state);
+    }
+}
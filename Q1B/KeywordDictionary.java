@@ -0,0 +1,140 @@
+package Q1B;
+// Algorithm Description (Algorithm Design)
+// KeywordSegmenter.wordBreak used to rebuild a HashSet per call and hash a fresh substring for every prefix.
+// KeywordDictionary is compiled once and shared by every query.
+
+// Step 1: Build: Keywords are inserted into a temporary pointer trie (one map of children per node).
+// Step 2: Flatten: The trie is renumbered in breadth-first order and packed into flat arrays:
+// childStart[node] .. childStart[node + 1] indexes the node's children in labels[] (sorted) and targets[].
+// Step 3: Lookup: child(node, c) is a binary search over at most 65,536 sorted labels (in practice a handful),
+// so walking a query is a loop over chars with no String or boxing allocation.
+// Step 4: Early Stop: A segmenter walking from position p stops as soon as child() returns -1,
+// because no keyword can continue with that character.
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Question 1 (b): Keyword Segmentation (Compiled Dictionary)
+ * Immutable array-backed trie over the marketing keyword list.
+ */
+public final class KeywordDictionary implements KeywordAutomaton {
+    public static final int ROOT = 0;
+
+    private final int[] childStart;  // length nodeCount + 1
+    private final char[] labels;     // edge labels, sorted per node
+    private final int[] targets;     // child node for each edge
+    private final boolean[] terminal;
+    private final int wordCount;
+
+    private KeywordDictionary(int[] childStart, char[] labels, int[] targets, boolean[] terminal, int wordCount) {
+        this.childStart = childStart;
+        this.labels = labels;
+        this.targets = targets;
+        this.terminal = terminal;
+        this.wordCount = wordCount;
+    }
+
+    // Temporary node used only while compiling
+    private static class BuildNode {
+        Map<Character, BuildNode> children = new TreeMap<>();
+        boolean terminal;
+        int id;
+    }
+
+    public static KeywordDictionary compile(Collection<String> keywords) {
+        BuildNode root = new BuildNode();
+        int nodeCount = 1;
+        int wordCount = 0;
+
+        for (String word : keywords) {
+            if (word.isEmpty()) continue; // An empty keyword would let the segmenter loop forever
+            BuildNode node = root;
+            for (int i = 0; i < word.length(); i++) {
+                BuildNode next = node.children.get(word.charAt(i));
+                if (next == null) {
+                    next = new BuildNode();
+                    node.children.put(word.charAt(i), next);
+                    nodeCount++;
+                }
+                node = next;
+            }
+            if (!node.terminal) wordCount++;
+            node.terminal = true;
+        }
+
+        // Breadth-first numbering keeps each node's children contiguous
+        List<BuildNode> order = new ArrayList<>(nodeCount);
+        ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            node.id = order.size();
+            order.add(node);
+            queue.addAll(node.children.values());
+        }
+
+        int[] childStart = new int[nodeCount + 1];
+        char[] labels = new char[nodeCount - 1];
+        int[] targets = new int[nodeCount - 1];
+        boolean[] terminal = new boolean[nodeCount];
+        int edge = 0;
+        for (BuildNode node : order) {
+            childStart[node.id] = edge;
+            terminal[node.id] = node.terminal;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                labels[edge] = child.getKey();
+                targets[edge] = child.getValue().id;
+                edge++;
+            }
+        }
+        childStart[nodeCount] = edge;
+
+        return new KeywordDictionary(childStart, labels, targets, terminal, wordCount);
+    }
+
+    @Override
+    public int root() {
+        return ROOT;
+    }
+
+    /** Node reached from node by c, or -1 if no keyword continues that way. */
+    @Override
+    public int child(int node, char c) {
+        int index = Arrays.binarySearch(labels, childStart[node], childStart[node + 1], c);
+        return index >= 0 ? targets[index] : -1;
+    }
+
+    /** True if the path from the root to node spells a keyword. */
+    @Override
+    public boolean isWord(int node) {
+        return terminal[node];
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    public int nodeCount() {
+        return terminal.length;
+    }
+
+    // Raw edge access for MappedKeywordDictionary.write: edges of node are firstEdge(node) .. firstEdge(node + 1) - 1
+    int firstEdge(int node) {
+        return childStart[node];
+    }
+
+    char edgeLabel(int edge) {
+        return labels[edge];
+    }
+
+    int edgeTarget(int edge) {
+        return targets[edge];
+    }
+}
@@ -16,6 +16,13 @@ package Q1B;
 
 // Step 5: Result Construction: All valid paths are collected into a list and returned.
 
+// Compiled Dictionary (High Query Volume):
+// wordBreak(query, KeywordAutomaton) takes a trie compiled once with KeywordDictionary.compile
+// (or a MappedKeywordDictionary opened from disk).
+// Instead of hashing query.substring(0, i) for every prefix, it walks the trie from each start position by index
+// and stops as soon as no keyword can continue. Substrings are only created for actual keyword matches,
+// and the memo is an array indexed by start position instead of a map keyed by suffix strings.
+
 
 import java.util.*;
 
@@ -36,6 +43,53 @@ public class KeywordSegmenter {
         return backtrack(query, wordSet);
     }
 
+    // Same segmentations as wordBreak(query, List), against a dictionary compiled once
+    public List<String> wordBreak(String query, KeywordAutomaton dictionary) {
+        return backtrack(query, 0, dictionary, newMemo(query.length() + 1));
+    }
+
+    // One slot per start position; the cast is safe because the array is only ever filled with List<String>
+    @SuppressWarnings("unchecked")
+    static List<String>[] newMemo(int size) {
+        return (List<String>[]) new List<?>[size];
+    }
+
+    private List<String> backtrack(String query, int start, KeywordAutomaton dictionary, List<String>[] positionMemo) {
+        if (positionMemo[start] != null) {
+            return positionMemo[start];
+        }
+
+        List<String> results = new ArrayList<>();
+
+        // Base case: the whole query has been consumed
+        if (start == query.length()) {
+            results.add("");
+            positionMemo[start] = results;
+            return results;
+        }
+
+        // Walk the trie along the query; every terminal node is a keyword prefix
+        int node = dictionary.root();
+        for (int end = start; end < query.length(); end++) {
+            node = dictionary.child(node, query.charAt(end));
+            if (node < 0) break; // No keyword continues with this character
+
+            if (dictionary.isWord(node)) {
+                List<String> suffixSegments = backtrack(query, end + 1, dictionary, positionMemo);
+                if (suffixSegments.isEmpty()) continue;
+
+                String prefix = query.substring(start, end + 1);
+                for (String segment : suffixSegments) {
+                    String space = segment.isEmpty() ? "" : " ";
+                    results.add(prefix + space + segment);
+                }
+            }
+        }
+
+        positionMemo[start] = results;
+        return results;
+    }
+
     private List<String> backtrack(String query, Set<String> wordSet) {
         // If we've already solved this sub-query, return the cached result
         if (memo.containsKey(query)) {
@@ -88,6 +142,11 @@ public class KeywordSegmenter {
         String q3 = "everesthikingtrail";
         List<String> d3 = Arrays.asList("everest", "hiking", "trek");
         System.out.println("Test Case 3: " + segmenter.wordBreak(q3, d3));
+
+        // TEST CASE 4: Compiled dictionary gives the same answers without per-call rebuilds
+        KeywordDictionary compiled = KeywordDictionary.compile(d2);
+        System.out.println("Test Case 4: " + segmenter.wordBreak(q2, compiled)
+            + " matches=" + segmenter.wordBreak(q2, compiled).equals(segmenter.wordBreak(q2, d2)));
     }
 }
 
@@ -97,5 +156,6 @@ public class KeywordSegmenter {
  *
  * Test Case 2: [visit kathmandu nepal, visit kathmandunepal, visitkathmandu nepal]
  * Test Case 3: []
+ * Test Case 4: [visit kathmandu nepal, visit kathmandunepal, visitkathmandu nepal] matches=true
  * -----------------------------------------------------------
  */
\ No newline at end of file
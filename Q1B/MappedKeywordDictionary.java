@@ -0,0 +1,210 @@
+package Q1B;
+// Algorithm Description (Algorithm Design)
+// Loading millions of keywords into a List and then a HashSet takes seconds and hundreds of MB of heap on every restart.
+// MappedKeywordDictionary stores the dictionary once as a minimal acyclic automaton (DAWG) and queries it off-heap.
+
+// Step 1: Build (one time): Compile the keywords into a KeywordDictionary trie.
+// Step 2: Minimization: Visit trie nodes children-first (reverse breadth-first order). Two nodes with the same
+// terminal flag and the same (label, target state) edges accept the same suffixes, so they share one state.
+// Common endings such as "...nepal" and "...guide" end up stored once.
+// Step 3: File Layout (big-endian): header {magic, stateCount, edgeCount, wordCount, root}, then
+// int edgeStart[stateCount + 1], int targets[edgeCount], char labels[edgeCount] (sorted per state), byte terminal[stateCount].
+// Step 4: Open: The file is mapped read-only with a MappedByteBuffer and only the header is read, so startup is near instant.
+// Every lookup uses absolute gets, so the buffer is safe to share between threads, and several JVMs on one host
+// share the same page-cache pages.
+
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Question 1 (b): Keyword Segmentation (On-disk Dictionary)
+ * Minimal acyclic automaton written once and memory-mapped for fast startup.
+ */
+public final class MappedKeywordDictionary implements KeywordAutomaton {
+    private static final int MAGIC = 0x4B574431; // "KWD1"
+    private static final int HEADER_BYTES = 5 * 4;
+
+    private final MappedByteBuffer buffer;
+    private final int stateCount, edgeCount, wordCount, root;
+    private final int edgeStartOffset, targetsOffset, labelsOffset, terminalOffset;
+
+    private MappedKeywordDictionary(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a keyword dictionary file");
+        }
+        stateCount = buffer.getInt(4);
+        edgeCount = buffer.getInt(8);
+        wordCount = buffer.getInt(12);
+        root = buffer.getInt(16);
+
+        edgeStartOffset = HEADER_BYTES;
+        targetsOffset = edgeStartOffset + 4 * (stateCount + 1);
+        labelsOffset = targetsOffset + 4 * edgeCount;
+        terminalOffset = labelsOffset + 2 * edgeCount;
+        if (buffer.capacity() != terminalOffset + stateCount) {
+            throw new IOException("Truncated keyword dictionary file");
+        }
+    }
+
+    public static MappedKeywordDictionary open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new MappedKeywordDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** One-time builder: minimizes the keyword trie and writes it in the mapped format. */
+    public static void write(Collection<String> keywords, Path file) throws IOException {
+        KeywordDictionary trie = KeywordDictionary.compile(keywords);
+        int nodes = trie.nodeCount();
+
+        // state[node] = minimized state id; states are created children-first, so the root is created last
+        int[] state = new int[nodes];
+        Map<List<Integer>, Integer> registry = new HashMap<>();
+        List<Integer> edgeStart = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        StringBuilder labels = new StringBuilder();
+        List<Boolean> terminal = new ArrayList<>();
+
+        for (int node = nodes - 1; node >= 0; node--) {
+            // Signature: terminal flag followed by (label, target state) pairs
+            List<Integer> signature = new ArrayList<>();
+            signature.add(trie.isWord(node) ? 1 : 0);
+            for (int e = trie.firstEdge(node); e < trie.firstEdge(node + 1); e++) {
+                signature.add((int) trie.edgeLabel(e));
+                signature.add(state[trie.edgeTarget(e)]);
+            }
+
+            Integer existing = registry.get(signature);
+            if (existing != null) {
+                state[node] = existing;
+                continue;
+            }
+
+            int id = terminal.size();
+            registry.put(signature, id);
+            state[node] = id;
+            edgeStart.add(targets.size());
+            terminal.add(trie.isWord(node));
+            for (int i = 1; i < signature.size(); i += 2) {
+                labels.append((char) (int) signature.get(i));
+                targets.add(signature.get(i + 1));
+            }
+        }
+        edgeStart.add(targets.size());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(terminal.size());
+            out.writeInt(targets.size());
+            out.writeInt(trie.size());
+            out.writeInt(state[KeywordDictionary.ROOT]);
+            for (int start : edgeStart) out.writeInt(start);
+            for (int target : targets) out.writeInt(target);
+            out.writeChars(labels.toString());
+            for (boolean word : terminal) out.writeByte(word ? 1 : 0);
+        }
+    }
+
+    @Override
+    public int root() {
+        return root;
+    }
+
+    @Override
+    public int child(int state, char c) {
+        // Binary search over this state's sorted labels, straight from the mapped file
+        int low = buffer.getInt(edgeStartOffset + 4 * state);
+        int high = buffer.getInt(edgeStartOffset + 4 * (state + 1)) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = buffer.getChar(labelsOffset + 2 * mid);
+            if (label < c) low = mid + 1;
+            else if (label > c) high = mid - 1;
+            else return buffer.getInt(targetsOffset + 4 * mid);
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isWord(int state) {
+        return buffer.get(terminalOffset + state) != 0;
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    public int stateCount() {
+        return stateCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("keywords", ".kwd");
+        try {
+            // TEST CASE 1: Mapped dictionary segments exactly like the in-heap trie
+            List<String> d2 = Arrays.asList("visit", "kathmandu", "nepal", "visitkathmandu", "kathmandunepal");
+            write(d2, file);
+            MappedKeywordDictionary mapped = open(file);
+            KeywordSegmenter segmenter = new KeywordSegmenter();
+            System.out.println("Test Case 1: " + segmenter.wordBreak("visitkathmandunepal", mapped)
+                + " matches=" + segmenter.wordBreak("visitkathmandunepal", mapped)
+                    .equals(segmenter.wordBreak("visitkathmandunepal", d2)));
+
+            // TEST CASE 2: 200,000 generated keywords sharing common endings
+            String[] places = {"kathmandu", "pokhara", "chitwan", "lumbini", "mustang", "everest", "annapurna", "bhaktapur"};
+            String[] topics = {"trek", "tour", "guide", "hotel", "bus", "flight", "map", "weather", "festival", "food"};
+            List<String> keywords = new ArrayList<>();
+            Random rng = new Random(3);
+            while (keywords.size() < 200_000) {
+                keywords.add(places[rng.nextInt(places.length)] + Integer.toString(rng.nextInt(1_000_000), 36)
+                    + topics[rng.nextInt(topics.length)]);
+            }
+            keywords.addAll(Arrays.asList(places));
+            keywords.addAll(Arrays.asList(topics));
+            write(keywords, file);
+
+            long startOpen = System.nanoTime();
+            mapped = open(file);
+            long openMicros = (System.nanoTime() - startOpen) / 1000;
+            KeywordDictionary heap = KeywordDictionary.compile(keywords);
+
+            boolean same = true;
+            for (int i = 0; i < 2000; i++) {
+                String query = keywords.get(rng.nextInt(keywords.size())) + places[i % places.length] + topics[i % topics.length];
+                same &= segmenter.wordBreak(query, mapped).equals(segmenter.wordBreak(query, heap));
+            }
+            System.out.println("Test Case 2: matches=" + same + " trieNodes=" + heap.nodeCount()
+                + " dawgStates=" + mapped.stateCount() + " fileKB=" + Files.size(file) / 1024
+                + " open=" + openMicros + "us");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1: [visit kathmandu nepal, visit kathmandunepal, visitkathmandu nepal] matches=true
+ * Test Case 2: matches=true trieNodes=1307649 dawgStates=49638 fileKB=1642 open=4890us
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,243 @@
+package Q1B;
+// Algorithm Description (Algorithm Design)
+// KeywordSegmenter.backtrack stores every complete segmentation of every suffix, and on inputs like "aaaa...a"
+// the number of segmentations grows exponentially. SegmentationLattice keeps only O(L * words-per-position) state.
+
+// Step 1: Lattice (DP over positions): Working right to left, query[p..L) can be segmented iff count[p] > 0.
+// From each p we walk the compiled trie and keep only the keyword edges p -> e whose end e can finish.
+// Step 2: Counting: count[p] = sum of count[e] over the kept edges, with count[L] = 1. Sums saturate at Long.MAX_VALUE
+// instead of overflowing, so callers asking "how many?" get an exact answer or a clear "at least 2^63 - 1".
+// Step 3: Lazy Enumeration: iterator()/stream() walk the lattice depth-first with an explicit stack of edge cursors.
+// Every kept edge leads to the end, so each next() call does O(L) work and never backtracks out of a dead end.
+// Step 4: Best N: With a per-word score, bestN keeps the N best (score, edge, rank) entries per position (k-best paths in a DAG).
+// Cost is O(L * edges * N) time and O(L * N) memory, however many segmentations exist.
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Question 1 (b): Keyword Segmentation (Lazy and Count-only Modes)
+ * Position DP over a compiled dictionary with bounded-memory enumeration.
+ */
+public final class SegmentationLattice implements Iterable<List<String>> {
+
+    private final String query;
+    private final int[][] edges;   // edges[p] = ascending end positions of keywords starting at p that can finish
+    private final long[] count;    // saturating number of segmentations of query[p..L)
+
+    private SegmentationLattice(String query, int[][] edges, long[] count) {
+        this.query = query;
+        this.edges = edges;
+        this.count = count;
+    }
+
+    public static SegmentationLattice build(String query, KeywordAutomaton dictionary) {
+        int length = query.length();
+        int[][] edges = new int[length + 1][];
+        long[] count = new long[length + 1];
+        count[length] = 1;
+        edges[length] = new int[0];
+
+        int[] scratch = new int[length];
+        for (int start = length - 1; start >= 0; start--) {
+            int found = 0;
+            long total = 0;
+            int node = dictionary.root();
+            for (int end = start; end < length; end++) {
+                node = dictionary.child(node, query.charAt(end));
+                if (node < 0) break;
+                if (dictionary.isWord(node) && count[end + 1] > 0) {
+                    scratch[found++] = end + 1;
+                    total = saturatingAdd(total, count[end + 1]);
+                }
+            }
+            edges[start] = Arrays.copyOf(scratch, found);
+            count[start] = total;
+        }
+
+        return new SegmentationLattice(query, edges, count);
+    }
+
+    private static long saturatingAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum; // Both operands are non-negative
+    }
+
+    public boolean isSegmentable() {
+        return count[0] > 0;
+    }
+
+    /** Number of segmentations, or Long.MAX_VALUE if there are at least that many. */
+    public long count() {
+        return count[0];
+    }
+
+    public boolean isCountSaturated() {
+        return count[0] == Long.MAX_VALUE;
+    }
+
+    /** Segmentations in the same order as KeywordSegmenter.wordBreak, built one at a time. */
+    @Override
+    public Iterator<List<String>> iterator() {
+        return new Iterator<List<String>>() {
+            // cursor[d] = index into edges[position[d]] chosen at depth d
+            private final int[] position = new int[query.length() + 1];
+            private final int[] cursor = new int[query.length() + 1];
+            private int depth = -1;          // -1 before the first result
+            private boolean exhausted = !isSegmentable();
+
+            @Override
+            public boolean hasNext() {
+                return !exhausted;
+            }
+
+            @Override
+            public List<String> next() {
+                if (exhausted) throw new NoSuchElementException();
+                if (depth < 0) {
+                    position[0] = 0;
+                    cursor[0] = 0;
+                    depth = 0;
+                    descend();
+                }
+
+                List<String> words = new ArrayList<>(depth);
+                for (int d = 0; d < depth; d++) {
+                    words.add(query.substring(position[d], position[d + 1]));
+                }
+                advance();
+                return words;
+            }
+
+            // Follow the first edge from the current depth until the end of the query
+            private void descend() {
+                while (position[depth] < query.length()) {
+                    position[depth + 1] = edges[position[depth]][cursor[depth]];
+                    depth++;
+                    cursor[depth] = 0;
+                }
+            }
+
+            // Move to the next path: bump the deepest cursor that still has a sibling edge
+            private void advance() {
+                depth--;
+                while (depth >= 0 && cursor[depth] + 1 >= edges[position[depth]].length) depth--;
+                if (depth < 0) {
+                    exhausted = true;
+                    return;
+                }
+                cursor[depth]++;
+                descend();
+            }
+        };
+    }
+
+    public Stream<List<String>> stream() {
+        Spliterator<List<String>> spliterator = isCountSaturated()
+            ? Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL)
+            : Spliterators.spliterator(iterator(), count(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /** The n segmentations with the highest total word score, best first. */
+    public List<List<String>> bestN(int n, ToDoubleFunction<String> wordScore) {
+        int length = query.length();
+        if (n <= 0 || !isSegmentable()) return Collections.emptyList();
+
+        // best*[p][r] describes the r-th best way to segment query[p..L)
+        double[][] bestScore = new double[length + 1][];
+        int[][] bestEnd = new int[length + 1][];
+        int[][] bestRank = new int[length + 1][];
+        bestScore[length] = new double[]{0};
+        bestEnd[length] = new int[]{length};
+        bestRank[length] = new int[]{0};
+
+        for (int start = length - 1; start >= 0; start--) {
+            int[] out = edges[start];
+            int limit = (int) Math.min(n, count[start]);
+            double[] score = new double[limit];
+            int[] end = new int[limit];
+            int[] rank = new int[limit];
+            double[] wordValue = new double[out.length];
+            for (int e = 0; e < out.length; e++) wordValue[e] = wordScore.applyAsDouble(query.substring(start, out[e]));
+
+            // Merge the sorted lists of every edge, taking the best head each time
+            int[] head = new int[out.length];
+            for (int r = 0; r < limit; r++) {
+                int pick = -1;
+                double pickScore = Double.NEGATIVE_INFINITY;
+                for (int e = 0; e < out.length; e++) {
+                    if (head[e] >= bestScore[out[e]].length) continue;
+                    double candidate = wordValue[e] + bestScore[out[e]][head[e]];
+                    if (pick < 0 || candidate > pickScore) {
+                        pick = e;
+                        pickScore = candidate;
+                    }
+                }
+                score[r] = pickScore;
+                end[r] = out[pick];
+                rank[r] = head[pick]++;
+            }
+            bestScore[start] = score;
+            bestEnd[start] = end;
+            bestRank[start] = rank;
+        }
+
+        List<List<String>> result = new ArrayList<>();
+        for (int r = 0; r < bestScore[0].length; r++) {
+            List<String> words = new ArrayList<>();
+            int p = 0, k = r;
+            while (p < length) {
+                int next = bestEnd[p][k];
+                k = bestRank[p][k];
+                words.add(query.substring(p, next));
+                p = next;
+            }
+            result.add(words);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: Same segmentations as KeywordSegmenter, produced lazily
+        KeywordDictionary tourism = KeywordDictionary.compile(
+            Arrays.asList("visit", "kathmandu", "nepal", "visitkathmandu", "kathmandunepal"));
+        SegmentationLattice lattice = build("visitkathmandunepal", tourism);
+        System.out.println("Test Case 1: count=" + lattice.count() + " " + lattice.stream()
+            .map(words -> String.join(" ", words)).collect(java.util.stream.Collectors.toList()));
+
+        // TEST CASE 2: Exponential input; only the count and the first few are materialized
+        KeywordDictionary dense = KeywordDictionary.compile(Arrays.asList("a", "aa", "aaa", "aaaa"));
+        String as = "a".repeat(200);
+        SegmentationLattice huge = build(as, dense);
+        System.out.println("Test Case 2: count=" + huge.count() + " saturated=" + huge.isCountSaturated()
+            + " first=" + huge.stream().limit(1).findFirst().get().size() + " words");
+
+        // TEST CASE 3: Best 3 segmentations preferring long keywords (score = length^2)
+        System.out.println("Test Case 3: " + build("a".repeat(10), dense).bestN(3, w -> w.length() * w.length()));
+
+        // TEST CASE 4: No valid segmentation
+        SegmentationLattice none = build("everesthikingtrail",
+            KeywordDictionary.compile(Arrays.asList("everest", "hiking", "trek")));
+        System.out.println("Test Case 4: count=" + none.count() + " segmentable=" + none.isSegmentable());
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1: count=3 [visit kathmandu nepal, visit kathmandunepal, visitkathmandu nepal]
+ * Test Case 2: count=9223372036854775807 saturated=true first=200 words
+ * Test Case 3: [[aa, aaaa, aaaa], [aaaa, aa, aaaa], [aaaa, aaaa, aa]]
+ * Test Case 4: count=0 segmentable=false
+ * -----------------------------------------------------------
+ */
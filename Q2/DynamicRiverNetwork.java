@@ -0,0 +1,149 @@
+package Q2;
+
+// Algorithm Description (Algorithm Design)
+
+// Plant outputs change every few minutes, and re-running the full O(N) evaluation after each change wastes work:
+// a new value at plant i can only change the gains of i and its ancestors.
+
+// Step 1: Stored Gains: For every plant we keep down[i] (best single branch starting at i, as in RiverNetwork)
+// and through[i] = value[i] + max(0, down[left]) + max(0, down[right]) (best path peaking at i).
+// Step 2: Update (setPlantValue): Recompute plant i, then walk up the parent array recomputing each ancestor.
+// An ancestor's through[] depends only on its children's down[], so once some ancestor's down[] is unchanged
+// nothing above it can change and the walk stops early. Worst case O(height) plants are touched.
+// Step 3: Global Maximum: through[] values sit in the leaves of a max segment tree (long[2 * N], iterative).
+// Each touched plant costs an O(log N) leaf update, and getMaxPower() reads the root in O(1).
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Question 2: Hydropower Plant Cascade Efficiency (Live Updates)
+ * Maximum cascade path maintained under point updates to plant outputs.
+ */
+public class DynamicRiverNetwork {
+    private final int[] value;
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final long[] down;
+    private final long[] through;
+    private final long[] tree; // tree[size + i] = through[i]; tree[k] = max of its two children
+    private final int size;
+
+    /** Takes a snapshot of network; later updates do not modify the original RiverNetwork. */
+    public DynamicRiverNetwork(RiverNetwork network) {
+        size = network.size();
+        value = network.value.clone();
+        left = network.left;
+        right = network.right;
+        parent = new int[size];
+        down = new long[size];
+        through = new long[size];
+        tree = new long[2 * Math.max(size, 1)];
+        Arrays.fill(tree, Long.MIN_VALUE);
+
+        Arrays.fill(parent, -1);
+        for (int i = 0; i < size; i++) {
+            if (left[i] >= 0) parent[left[i]] = i;
+            if (right[i] >= 0) parent[right[i]] = i;
+        }
+
+        // Children before parents, exactly as RiverNetwork.evaluate
+        int[] order = network.preOrder();
+        for (int k = size - 1; k >= 0; k--) recompute(order[k]);
+        for (int i = 0; i < size; i++) tree[size + i] = through[i];
+        for (int k = size - 1; k >= 1; k--) tree[k] = Math.max(tree[2 * k], tree[2 * k + 1]);
+    }
+
+    public int getPlantValue(int plant) {
+        return value[plant];
+    }
+
+    /** Changes one plant's output and repairs the gains along its path to the root. */
+    public void setPlantValue(int plant, int newValue) {
+        value[plant] = newValue;
+        for (int node = plant; node >= 0; node = parent[node]) {
+            long oldDown = down[node];
+            long oldThrough = through[node];
+            recompute(node);
+            if (through[node] != oldThrough) updateLeaf(node);
+            // Ancestors only read down[], so an unchanged down[] ends the repair
+            if (down[node] == oldDown) break;
+        }
+    }
+
+    /** Best cascade total after the latest update, in O(1). */
+    public long getMaxPower() {
+        return size == 0 ? Long.MIN_VALUE : tree[1];
+    }
+
+    private void recompute(int node) {
+        long leftGain = left[node] >= 0 ? Math.max(down[left[node]], 0) : 0;
+        long rightGain = right[node] >= 0 ? Math.max(down[right[node]], 0) : 0;
+        through[node] = value[node] + leftGain + rightGain;
+        down[node] = value[node] + Math.max(leftGain, rightGain);
+    }
+
+    private void updateLeaf(int node) {
+        int k = size + node;
+        tree[k] = through[node];
+        for (k >>= 1; k >= 1; k >>= 1) tree[k] = Math.max(tree[2 * k], tree[2 * k + 1]);
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: Example 2, then the -10 site is upgraded to +30
+        int[] value = {-10, 9, 20, 15, 7};
+        int[] parent = {-1, 0, 0, 2, 2};
+        RiverNetwork network = RiverNetwork.fromParents(value, parent);
+        DynamicRiverNetwork live = new DynamicRiverNetwork(network);
+        System.out.print("Test Case 1 Output: " + live.getMaxPower());
+        live.setPlantValue(0, 30);
+        System.out.println(" -> " + live.getMaxPower());
+
+        // TEST CASE 2: 5,000 random updates checked against a full RiverNetwork recompute
+        Random rng = new Random(21);
+        int n = 3000;
+        int[] values = new int[n], parents = new int[n];
+        int[] children = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = rng.nextInt(201) - 100;
+            if (i == 0) { parents[i] = -1; continue; }
+            int p;
+            do { p = rng.nextInt(i); } while (children[p] == 2);
+            parents[i] = p;
+            children[p]++;
+        }
+        live = new DynamicRiverNetwork(RiverNetwork.fromParents(values, parents));
+        boolean matches = true;
+        for (int step = 0; step < 5000 && matches; step++) {
+            int plant = rng.nextInt(n);
+            values[plant] = rng.nextInt(201) - 100;
+            live.setPlantValue(plant, values[plant]);
+            if (step % 50 == 0) {
+                matches = live.getMaxPower() == RiverNetwork.fromParents(values, parents).evaluate().getMaxPower();
+            }
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: Updates near the top of a 200,000-plant chain stop after a few ancestors
+        int chain = 200_000;
+        int[] chainValues = new int[chain], chainParents = new int[chain];
+        for (int i = 0; i < chain; i++) {
+            chainValues[i] = 10;
+            chainParents[i] = i - 1;
+        }
+        live = new DynamicRiverNetwork(RiverNetwork.fromParents(chainValues, chainParents));
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) live.setPlantValue(i % 100, 10 + (i & 1));
+        long updateMicros = (System.nanoTime() - start) / 1000;
+        System.out.println("Test Case 3 Output: " + live.getMaxPower() + " after 100000 updates in " + updateMicros / 1000 + " ms");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 42 -> 74
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 2000050 after 100000 updates in 17 ms
+ * -----------------------------------------------------------
+ */
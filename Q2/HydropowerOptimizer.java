@@ -12,23 +12,17 @@ package Q2;
 // If this sum is higher than our maxPower, we update the global record.
 // Step 5: Returning to Parent: To allow the sequence to continue upstream, a node can only pass back the value of its best single branch (either left or right) plus its own value.
 // Efficiency: The algorithm visits each node exactly once, resulting in a Time Complexity of $O(N)$, where $N$ is the number of plants.
+// Large Cascades: The recursion depth equals the tree height, so very deep cascades should use RiverNetwork,
+// the array-backed iterative engine that also returns the plants on the best path.
 /**
  * Question 2: Hydropower Plant Cascade Efficiency
  * Finding the Maximum Path Sum in a tree-like river network.
  */
-
-// Definition for a binary tree node (Hydropower Plant)
-class PlantNode {
-    int val;
-    PlantNode left;
-    PlantNode right;
-    PlantNode(int val) { this.val = val; }
-}
-
 public class HydropowerOptimizer {
     private int maxPower = Integer.MIN_VALUE;
 
     public int getMaxPower(PlantNode root) {
+        maxPower = Integer.MIN_VALUE; // Fresh run, so one optimizer can evaluate many networks
         calculateNodeMax(root);
         return maxPower;
     }
@@ -62,7 +56,6 @@ public class HydropowerOptimizer {
 
         // TEST CASE 2: High Environmental Costs (Example 2)
         // Root: -10, Left: 9, Right: 20 -> (Right's children: 15, 7)
-        optimizer.maxPower = Integer.MIN_VALUE; // Reset for new test
         PlantNode root2 = new PlantNode(-10);
         root2.left = new PlantNode(9);
         root2.right = new PlantNode(20);
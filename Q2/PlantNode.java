@@ -0,0 +1,10 @@
+package Q2;
+
+// Definition for a binary tree node (Hydropower Plant)
+// Shared by HydropowerOptimizer and RiverNetwork, so it lives in its own source file.
+class PlantNode {
+    int val;
+    PlantNode left;
+    PlantNode right;
+    PlantNode(int val) { this.val = val; }
+}
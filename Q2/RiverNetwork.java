@@ -0,0 +1,307 @@
+package Q2;
+
+// Algorithm Description (Algorithm Design)
+
+// HydropowerOptimizer recurses over linked PlantNode objects, so a degenerate cascade of tens of thousands of plants
+// overflows the call stack, and following pointers across the heap is cache-hostile.
+// RiverNetwork stores the same tree as a struct of arrays and evaluates it without recursion.
+
+// Step 1: Representation: Plant i has value[i], left[i] and right[i] (-1 when there is no tributary).
+// Networks can be converted from PlantNode trees or loaded from a parent-array file. A parent array is checked before
+// use: every parent must be -1 or a plant index, and every plant must be reachable from the single root, which rules out
+// cycles and detached branches.
+// Step 2: Order: An explicit stack produces a pre-order (parents before children); walking it backwards visits
+// every child before its parent, which is exactly the post-order the recursion needed.
+// Step 3: Evaluation: For each plant, down[i] = value[i] + max(0, down[left], down[right]) is the best single-branch gain,
+// and value[i] + max(0, down[left]) + max(0, down[right]) is the best path that peaks at i.
+// Step 4: Path Recovery: From the best peak, follow the best child (bestChild[i]) down each positive side and join
+// the two chains. The evaluator returns a CascadeResult and keeps no state between calls, so it is reusable.
+// Efficiency: O(N) time, O(N) heap memory and O(1) stack depth; sums are long so large basins cannot overflow.
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Question 2: Hydropower Plant Cascade Efficiency (Array-backed Engine)
+ * Stack-safe maximum path sum over a struct-of-arrays river network.
+ */
+public class RiverNetwork {
+    final int[] value;
+    final int[] left;
+    final int[] right;
+    final int root;
+
+    /** Result of one evaluation: the best total and the plants along that cascade, in path order. */
+    public static final class CascadeResult {
+        final long maxPower;
+        final int[] path;
+
+        CascadeResult(long maxPower, int[] path) {
+            this.maxPower = maxPower;
+            this.path = path;
+        }
+
+        public long getMaxPower() { return maxPower; }
+
+        public int[] getPath() { return path; }
+
+        @Override
+        public String toString() {
+            return maxPower + " via plants " + Arrays.toString(path);
+        }
+    }
+
+    public RiverNetwork(int[] value, int[] left, int[] right, int root) {
+        if (value.length != left.length || value.length != right.length) {
+            throw new IllegalArgumentException("value, left and right must have the same length");
+        }
+        this.value = value;
+        this.left = left;
+        this.right = right;
+        this.root = root;
+    }
+
+    public int size() {
+        return value.length;
+    }
+
+    /** Copies a linked PlantNode tree into arrays (breadth-first numbering, root = 0). */
+    public static RiverNetwork fromPlantTree(PlantNode rootNode) {
+        if (rootNode == null) return new RiverNetwork(new int[0], new int[0], new int[0], -1);
+
+        List<PlantNode> nodes = new ArrayList<>();
+        nodes.add(rootNode);
+        List<int[]> links = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            PlantNode node = nodes.get(i);
+            int[] link = {-1, -1};
+            if (node.left != null) { link[0] = nodes.size(); nodes.add(node.left); }
+            if (node.right != null) { link[1] = nodes.size(); nodes.add(node.right); }
+            links.add(link);
+        }
+
+        int n = nodes.size();
+        int[] value = new int[n], left = new int[n], right = new int[n];
+        for (int i = 0; i < n; i++) {
+            value[i] = nodes.get(i).val;
+            left[i] = links.get(i)[0];
+            right[i] = links.get(i)[1];
+        }
+        return new RiverNetwork(value, left, right, 0);
+    }
+
+    /**
+     * Builds a network from a parent array (parent[root] = -1).
+     * The first child listed for a plant becomes its left tributary, the second its right.
+     */
+    public static RiverNetwork fromParents(int[] value, int[] parent) {
+        int n = value.length;
+        if (parent.length != n) throw new IllegalArgumentException("value and parent must have the same length");
+        int[] left = new int[n], right = new int[n];
+        Arrays.fill(left, -1);
+        Arrays.fill(right, -1);
+        int root = -1;
+
+        for (int i = 0; i < n; i++) {
+            int p = parent[i];
+            if (p < -1 || p >= n) {
+                throw new IllegalArgumentException("Plant " + i + " has parent " + p + " outside -1.." + (n - 1));
+            } else if (p < 0) {
+                if (root >= 0) throw new IllegalArgumentException("More than one root: " + root + " and " + i);
+                root = i;
+            } else if (left[p] < 0) {
+                left[p] = i;
+            } else if (right[p] < 0) {
+                right[p] = i;
+            } else {
+                throw new IllegalArgumentException("Plant " + p + " has more than two tributaries");
+            }
+        }
+        if (n > 0 && root < 0) throw new IllegalArgumentException("No root plant (parent = -1)");
+
+        // A parent array with one root is a tree exactly when the walk from the root reaches every plant
+        RiverNetwork network = new RiverNetwork(value, left, right, root);
+        int[] order = new int[n];
+        int reached = network.preOrder(order);
+        if (reached < n) {
+            boolean[] seen = new boolean[n];
+            for (int k = 0; k < reached; k++) seen[order[k]] = true;
+            int detached = 0;
+            while (seen[detached]) detached++;
+            throw new IllegalArgumentException("Plant " + detached + " is not reachable from root " + root
+                + " (cycle or detached branch)");
+        }
+        return network;
+    }
+
+    /** Loads a parent-array file: line i holds "value parent" for plant i; blank lines and '#' comments are skipped. */
+    public static RiverNetwork load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        int[] value = new int[lines.size()];
+        int[] parent = new int[lines.size()];
+        int n = 0, lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(file + ":" + lineNumber + ": expected \"value parent\": " + line);
+            }
+            value[n] = Integer.parseInt(parts[0]);
+            parent[n] = Integer.parseInt(parts[1]);
+            n++;
+        }
+        return fromParents(Arrays.copyOf(value, n), Arrays.copyOf(parent, n));
+    }
+
+    /** Parents-before-children order produced with an explicit stack. */
+    int[] preOrder() {
+        int[] order = new int[value.length];
+        preOrder(order);
+        return order;
+    }
+
+    // Fills order with the plants reachable from the root and returns how many there are
+    private int preOrder(int[] order) {
+        if (root < 0) return 0;
+        int[] stack = new int[value.length];
+        int top = 0, count = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            order[count++] = node;
+            if (right[node] >= 0) stack[top++] = right[node];
+            if (left[node] >= 0) stack[top++] = left[node];
+        }
+        return count;
+    }
+
+    public CascadeResult evaluate() {
+        int n = value.length;
+        if (root < 0) return new CascadeResult(Long.MIN_VALUE, new int[0]);
+
+        long[] down = new long[n];
+        int[] bestChild = new int[n];
+        int[] order = preOrder();
+        long maxPower = Long.MIN_VALUE;
+        int peak = root;
+
+        // Reverse pre-order: every tributary is finished before the plant it feeds
+        for (int k = n - 1; k >= 0; k--) {
+            int node = order[k];
+            long leftGain = left[node] >= 0 ? Math.max(down[left[node]], 0) : 0;
+            long rightGain = right[node] >= 0 ? Math.max(down[right[node]], 0) : 0;
+
+            long currentPathSum = value[node] + leftGain + rightGain;
+            if (currentPathSum > maxPower) {
+                maxPower = currentPathSum;
+                peak = node;
+            }
+
+            if (leftGain >= rightGain) {
+                bestChild[node] = leftGain > 0 ? left[node] : -1;
+                down[node] = value[node] + leftGain;
+            } else {
+                bestChild[node] = right[node];
+                down[node] = value[node] + rightGain;
+            }
+        }
+
+        return new CascadeResult(maxPower, recoverPath(peak, down, bestChild));
+    }
+
+    // Left chain (reversed so it reads downstream -> peak), the peak, then the right chain
+    private int[] recoverPath(int peak, long[] down, int[] bestChild) {
+        ArrayDeque<Integer> path = new ArrayDeque<>();
+        path.add(peak);
+        if (left[peak] >= 0 && down[left[peak]] > 0) {
+            for (int node = left[peak]; node >= 0; node = bestChild[node]) path.addFirst(node);
+        }
+        if (right[peak] >= 0 && down[right[peak]] > 0) {
+            for (int node = right[peak]; node >= 0; node = bestChild[node]) path.addLast(node);
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // TEST CASE 1: High Environmental Costs (Example 2) converted from PlantNode
+        PlantNode root2 = new PlantNode(-10);
+        root2.left = new PlantNode(9);
+        root2.right = new PlantNode(20);
+        root2.right.left = new PlantNode(15);
+        root2.right.right = new PlantNode(7);
+        RiverNetwork example = fromPlantTree(root2);
+        System.out.println("Test Case 1 Output: " + example.evaluate());
+
+        // TEST CASE 2: Same network loaded from a parent-array file
+        Path file = Files.createTempFile("cascade", ".txt");
+        try {
+            Files.write(file, Arrays.asList("# value parent", "-10 -1", "9 0", "20 0", "15 2", "7 2"));
+            System.out.println("Test Case 2 Output: " + load(file).evaluate());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // TEST CASE 3: Degenerate cascade of 200,000 plants (the recursive version overflows the stack)
+        int n = 200_000;
+        int[] value = new int[n], parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            value[i] = 1000;
+            parent[i] = i - 1;
+        }
+        CascadeResult chain = fromParents(value, parent).evaluate();
+        System.out.println("Test Case 3 Output: " + chain.maxPower + " over " + chain.path.length + " plants");
+
+        // TEST CASE 4: Random trees agree with HydropowerOptimizer, and the evaluator is reused without resets
+        Random rng = new Random(9);
+        HydropowerOptimizer reference = new HydropowerOptimizer();
+        boolean matches = true;
+        for (int t = 0; t < 200; t++) {
+            int size = 1 + rng.nextInt(60);
+            PlantNode[] plants = new PlantNode[size];
+            for (int i = 0; i < size; i++) {
+                plants[i] = new PlantNode(rng.nextInt(41) - 20);
+                if (i > 0) {
+                    PlantNode p = plants[rng.nextInt(i)];
+                    while (p.left != null && p.right != null) p = rng.nextBoolean() ? p.left : p.right;
+                    if (p.left == null) p.left = plants[i]; else p.right = plants[i];
+                }
+            }
+            RiverNetwork network = fromPlantTree(plants[0]);
+            CascadeResult result = network.evaluate();
+            long pathSum = 0;
+            for (int node : result.path) pathSum += network.value[node];
+            matches &= result.maxPower == reference.getMaxPower(plants[0]) && pathSum == result.maxPower;
+        }
+        System.out.println("Test Case 4 Output: " + matches);
+
+        // TEST CASE 5: Malformed parent arrays are rejected: a parent out of range, and a cycle cut off from the root
+        int[][] broken = {{-1, 5, 0}, {-1, 2, 1}};
+        for (int[] bad : broken) {
+            try {
+                fromParents(new int[bad.length], bad);
+                System.out.println("Test Case 5 Output: " + Arrays.toString(bad) + " accepted");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Test Case 5 Output: " + Arrays.toString(bad) + " -> " + e.getMessage());
+            }
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 42 via plants [3, 2, 4]
+ * Test Case 2 Output: 42 via plants [3, 2, 4]
+ * Test Case 3 Output: 200000000 over 200000 plants
+ * Test Case 4 Output: true
+ * Test Case 5 Output: [-1, 5, 0] -> Plant 1 has parent 5 outside -1..2
+ * Test Case 5 Output: [-1, 2, 1] -> Plant 1 is not reachable from root 0 (cycle or detached branch)
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,209 @@
+package Q3;
+
+// Algorithm Description (Algorithm Design)
+// The nightly run evaluates thousands of (k, prices) pairs one CommodityTrader.maxProfit call at a time,
+// allocating a fresh int[k + 1][n] table for each. BatchTrader spreads the jobs over all cores instead.
+
+// Step 1: Scheduling: Jobs are submitted to a work-stealing ForkJoinPool, so a thread that finishes a short series
+// steals queued work from busy threads instead of idling behind one long series.
+// Step 2: Engine Choice per Job: k >= n / 2 is unlimited trading (sum of all rises). A k that is large compared with
+// log n uses ValleyPeakTrader, which is O(n log n) whatever k is. Otherwise the O(k) rolling buy/sell recurrence
+// of StreamingTrader runs on scratch arrays.
+// Step 3: Scratch Reuse: Each worker thread keeps its own buffers in a ThreadLocal: buy/sell long[] for the
+// StreamingTrader kernel and the profit/valley/peak arrays for the ValleyPeakTrader kernel. They grow only when a job
+// needs a larger k or a longer series, so no per-job table or buffer is allocated.
+// Step 4: Streaming Results: Workers push each Result onto a queue as soon as it is done. The caller's thread drains
+// the queue and hands results to the callback in completion order, so the callback does not need to be thread-safe.
+// Step 5: Report: Wall time, jobs/s and price-days/s per core are returned when the batch finishes.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Question 3: Agricultural Commodity Trading (Batch Evaluation)
+ * Multi-commodity maximum profit over a work-stealing pool with per-thread scratch buffers.
+ */
+public class BatchTrader {
+
+    /** One commodity series to evaluate with at most maxTrades trades. */
+    public static final class Job {
+        final String id;
+        final int maxTrades;
+        final int[] prices;
+
+        public Job(String id, int maxTrades, int[] prices) {
+            this.id = id; this.maxTrades = maxTrades; this.prices = prices;
+        }
+    }
+
+    public static final class Result {
+        final Job job;
+        final long profit;
+        final Throwable error;
+
+        Result(Job job, long profit, Throwable error) {
+            this.job = job; this.profit = profit; this.error = error;
+        }
+
+        public String getId() { return job.id; }
+
+        public long getProfit() { return profit; }
+
+        public boolean failed() { return error != null; }
+
+        @Override
+        public String toString() {
+            return failed() ? job.id + ": failed (" + error + ")" : job.id + ": " + profit;
+        }
+    }
+
+    public static final class Report {
+        final int jobs, cores;
+        final long priceDays, wallNanos;
+
+        Report(int jobs, long priceDays, long wallNanos, int cores) {
+            this.jobs = jobs; this.priceDays = priceDays; this.wallNanos = wallNanos; this.cores = cores;
+        }
+
+        public double jobsPerSecondPerCore() {
+            return jobs / (wallNanos / 1e9) / cores;
+        }
+
+        public double daysPerSecondPerCore() {
+            return priceDays / (wallNanos / 1e9) / cores;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d jobs, %d price-days in %d ms on %d cores | %.0f jobs/s/core | %.2fM days/s/core",
+                jobs, priceDays, wallNanos / 1_000_000, cores, jobsPerSecondPerCore(), daysPerSecondPerCore() / 1e6);
+        }
+    }
+
+    // Per-thread kernel buffers, grown on demand
+    private static final class Scratch {
+        long[] buy = new long[0];
+        long[] sell = new long[0];
+        long[] profits = new long[0];
+        int[] valleys = new int[0];
+        int[] peaks = new int[0];
+
+        void ensureTrades(int maxTrades) {
+            if (buy.length <= maxTrades) {
+                buy = new long[maxTrades + 1];
+                sell = new long[maxTrades + 1];
+            }
+        }
+
+        void ensureDays(int days) {
+            if (profits.length <= days / 2) {
+                profits = new long[days / 2 + 1];
+                valleys = new int[days / 2 + 1];
+                peaks = new int[days / 2 + 1];
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public BatchTrader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BatchTrader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Runs every job and delivers each result to onResult, on the calling thread, as soon as it completes. */
+    public Report run(List<Job> jobs, Consumer<Result> onResult) throws InterruptedException {
+        long start = System.nanoTime();
+        LinkedBlockingQueue<Result> completed = new LinkedBlockingQueue<>();
+        long priceDays = 0;
+
+        for (Job job : jobs) {
+            priceDays += job.prices.length;
+            pool.execute(() -> {
+                Result result;
+                try {
+                    result = new Result(job, evaluate(job.maxTrades, job.prices), null);
+                } catch (RuntimeException | Error e) {
+                    result = new Result(job, 0, e);
+                }
+                completed.add(result);
+            });
+        }
+
+        for (int delivered = 0; delivered < jobs.size(); delivered++) {
+            onResult.accept(completed.take());
+        }
+        return new Report(jobs.size(), priceDays, System.nanoTime() - start, pool.getParallelism());
+    }
+
+    /** Same answer as CommodityTrader.maxProfit, in long, using the calling thread's scratch buffers. */
+    long evaluate(int maxTrades, int[] prices) {
+        int n = prices.length;
+        if (n <= 1 || maxTrades == 0) return 0;
+
+        if (maxTrades >= n / 2) {
+            long profit = 0;
+            for (int i = 1; i < n; i++) {
+                if (prices[i] > prices[i - 1]) profit += prices[i] - prices[i - 1];
+            }
+            return profit;
+        }
+
+        Scratch s = scratch.get();
+        // Rolling DP costs k * n; the valley/peak engine costs about n * log2(n)
+        if (maxTrades > 32 - Integer.numberOfLeadingZeros(n)) {
+            s.ensureDays(n);
+            return ValleyPeakTrader.maxProfit(maxTrades, prices, s.profits, s.valleys, s.peaks);
+        }
+
+        s.ensureTrades(maxTrades);
+        StreamingTrader.clear(s.buy, s.sell, maxTrades);
+        for (int price : prices) StreamingTrader.step(s.buy, s.sell, maxTrades, price);
+        return s.sell[maxTrades];
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        BatchTrader batch = new BatchTrader();
+        CommodityTrader reference = new CommodityTrader();
+
+        // TEST CASE 1: The three assignment series in one batch
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(new Job("chitwan", 2, new int[]{2000, 4000, 1000}));
+        jobs.add(new Job("cycles", 2, new int[]{1000, 2000, 1500, 3000, 500, 4000}));
+        jobs.add(new Job("falling", 1, new int[]{5000, 4000, 3000, 2000}));
+        List<String> first = new ArrayList<>();
+        batch.run(jobs, r -> first.add(r.toString()));
+        first.sort(null);
+        System.out.println("Test Case 1 Output: " + first);
+
+        // TEST CASE 2: 5,000 nightly jobs (mixed sizes and k) agree with CommodityTrader
+        Random rng = new Random(99);
+        List<Job> nightly = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int[] prices = rng.ints(50 + rng.nextInt(2000), 1000, 5000).toArray();
+            nightly.add(new Job("commodity-" + i, 1 + rng.nextInt(60), prices));
+        }
+        boolean[] matches = {true};
+        Report report = batch.run(nightly, r ->
+            matches[0] &= !r.failed() && r.profit == reference.maxProfit(r.job.maxTrades, r.job.prices));
+        System.out.println("Test Case 2 Output: " + matches[0]);
+        // Throughput here includes the reference check running in the callback
+        System.out.println("Throughput: " + report);
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: [chitwan: 2000, cycles: 5500, falling: 0]
+ * Test Case 2 Output: true
+ * Throughput: 5000 jobs, 5266209 price-days in 1511 ms on 1 cores | 3308 jobs/s/core | 3.48M days/s/core
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,216 @@
+package Q3;
+
+// Algorithm Description (Algorithm Design)
+// Analysts ask for the best profit with at most k trades between day l and day r across thousands of windows.
+// Re-running CommodityTrader.maxProfit on a copied subarray costs O(k * (r - l)) per window.
+// ProfitRangeIndex precomputes a segment tree so each window is answered by merging O(log n) nodes.
+
+// Step 1: Node State: For a block of days, best[hIn][hOut][t] is the best cash change when we enter the block
+// holding (hIn = 1) or not (hIn = 0), leave it holding or not (hOut), and make at most t buys inside the block.
+// A single day with price p allows: do nothing (0), hold through (0), buy (-p, one buy) or sell (+p).
+// Step 2: Merge: Two neighbouring blocks A then B combine as
+// C[hIn][hOut][t] = max over hMid and a + b = t of A[hIn][hMid][a] + B[hMid][hOut][b].
+// Because values are "at most t buys", the table stays monotone in t, and one merge costs O(k^2).
+// Step 3: Query: The O(log n) nodes covering [l, r] are merged from left to right. The answer is C[0][0][k]:
+// start and end without holding anything. Cost O(k^2 log n), with no rescanning of prices.
+// Step 4: Point Update: Correcting one price rebuilds its leaf and re-merges its O(log n) ancestors.
+// Memory: 2 * 2^ceil(log2 n) nodes * 4 * (k + 1) longs, so the index is sized for one maximum k chosen up front. The
+// size is computed in long, and an index that would not fit in one array is rejected instead of overflowing.
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Question 3: Agricultural Commodity Trading (Window Queries)
+ * Segment tree of merged per-k profit states with point updates.
+ */
+public class ProfitRangeIndex {
+    private static final long NONE = Long.MIN_VALUE / 4; // Unreachable state; safe to add twice
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8; // Largest array length the JVM reliably allocates
+
+    private final int n;
+    private final int maxTrades;
+    private final int width;   // maxTrades + 1 values per (hIn, hOut) pair
+    private final int stride;  // 4 * width values per node
+    private final int leaves;  // power of two >= n
+    private final long[] tree; // node k occupies tree[k * stride .. (k + 1) * stride)
+
+    public ProfitRangeIndex(int[] prices, int maxTrades) {
+        if (maxTrades < 0) throw new IllegalArgumentException("maxTrades must be >= 0");
+        long leafCount = Long.highestOneBit(Math.max(prices.length, 1) * 2L - 1);
+        long size = 2 * leafCount * 4 * ((long) maxTrades + 1);
+        if (size > MAX_ARRAY) {
+            throw new IllegalArgumentException("Index for " + prices.length + " days and k = " + maxTrades + " needs "
+                + size + " longs; at most " + MAX_ARRAY + " fit in one array");
+        }
+        this.n = prices.length;
+        this.maxTrades = maxTrades;
+        this.width = maxTrades + 1;
+        this.stride = 4 * width;
+        this.leaves = (int) leafCount;
+        this.tree = new long[(int) size];
+
+        for (int i = 0; i < leaves; i++) {
+            if (i < n) setLeaf(i, prices[i]);
+            else setIdentity(tree, (leaves + i) * stride);
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            merge(tree, 2 * node * stride, tree, (2 * node + 1) * stride, tree, node * stride);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /** Best profit with at most k trades using only days from..to (inclusive). */
+    public long maxProfit(int from, int to, int k) {
+        if (k < 0 || k > maxTrades) throw new IllegalArgumentException("k must be in 0.." + maxTrades);
+        if (from < 0 || to >= n || from > to) throw new IndexOutOfBoundsException("Window " + from + ".." + to);
+
+        long[] acc = new long[stride];
+        long[] tmp = new long[stride];
+        setIdentity(acc, 0);
+
+        // Collect covering nodes left to right: left boundary nodes in order, right boundary nodes reversed
+        int[] rightNodes = new int[64];
+        int rightCount = 0;
+        for (int lo = from + leaves, hi = to + leaves + 1; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                merge(acc, 0, tree, lo * stride, tmp, 0);
+                long[] t = acc; acc = tmp; tmp = t;
+                lo++;
+            }
+            if ((hi & 1) == 1) rightNodes[rightCount++] = --hi;
+        }
+        for (int i = rightCount - 1; i >= 0; i--) {
+            merge(acc, 0, tree, rightNodes[i] * stride, tmp, 0);
+            long[] t = acc; acc = tmp; tmp = t;
+        }
+
+        return acc[index(0, 0, k)];
+    }
+
+    /** Corrects the price on one day and repairs its ancestors. */
+    public void update(int day, int price) {
+        if (day < 0 || day >= n) throw new IllegalArgumentException("Day " + day + " outside 0.." + (n - 1));
+        setLeaf(day, price);
+        for (int node = (leaves + day) >> 1; node >= 1; node >>= 1) {
+            merge(tree, 2 * node * stride, tree, (2 * node + 1) * stride, tree, node * stride);
+        }
+    }
+
+    private int index(int hIn, int hOut, int t) {
+        return (hIn * 2 + hOut) * width + t;
+    }
+
+    private void setLeaf(int day, int price) {
+        int base = (leaves + day) * stride;
+        Arrays.fill(tree, base, base + stride, NONE);
+        for (int t = 0; t <= maxTrades; t++) {
+            tree[base + index(0, 0, t)] = 0;       // Stay out of the market
+            tree[base + index(1, 1, t)] = 0;       // Keep holding
+            tree[base + index(1, 0, t)] = price;   // Sell today
+            if (t >= 1) tree[base + index(0, 1, t)] = -(long) price; // Buy today (uses one trade)
+        }
+    }
+
+    // Neutral block: state passes through unchanged
+    private void setIdentity(long[] target, int base) {
+        Arrays.fill(target, base, base + stride, NONE);
+        for (int t = 0; t <= maxTrades; t++) {
+            target[base + index(0, 0, t)] = 0;
+            target[base + index(1, 1, t)] = 0;
+        }
+    }
+
+    // out = a followed by b; out must not overlap a or b
+    private void merge(long[] a, int aBase, long[] b, int bBase, long[] out, int outBase) {
+        for (int hIn = 0; hIn < 2; hIn++) {
+            for (int hOut = 0; hOut < 2; hOut++) {
+                int o = outBase + index(hIn, hOut, 0);
+                for (int t = 0; t <= maxTrades; t++) {
+                    long best = NONE;
+                    for (int hMid = 0; hMid < 2; hMid++) {
+                        int ai = aBase + index(hIn, hMid, 0);
+                        int bi = bBase + index(hMid, hOut, 0);
+                        for (int x = 0; x <= t; x++) {
+                            long v = a[ai + x] + b[bi + t - x];
+                            if (v > best) best = v;
+                        }
+                    }
+                    out[o + t] = Math.max(best, NONE);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: Multiple profitable cycles; whole series and a window
+        int[] prices = {1000, 2000, 1500, 3000, 500, 4000};
+        ProfitRangeIndex index = new ProfitRangeIndex(prices, 2);
+        System.out.println("Test Case 1 Output: " + index.maxProfit(0, 5, 2) + ", days 0..3 with 1 trade: "
+            + index.maxProfit(0, 3, 1));
+
+        // TEST CASE 2: 2,000 random windows and price corrections agree with CommodityTrader on copied subarrays
+        Random rng = new Random(31);
+        int n = 3000, kMax = 6;
+        int[] series = rng.ints(n, 1000, 5000).toArray();
+        ProfitRangeIndex live = new ProfitRangeIndex(series, kMax);
+        CommodityTrader reference = new CommodityTrader();
+        boolean matches = true;
+        for (int q = 0; q < 2000; q++) {
+            if (q % 10 == 0) {
+                int day = rng.nextInt(n);
+                series[day] = rng.nextInt(4000) + 1000;
+                live.update(day, series[day]);
+            }
+            int l = rng.nextInt(n), r = l + rng.nextInt(n - l);
+            int k = rng.nextInt(kMax + 1);
+            matches &= live.maxProfit(l, r, k) == reference.maxProfit(k, Arrays.copyOfRange(series, l, r + 1));
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: 10,000 overlapping windows over 100,000 days, index vs. rescanning copies
+        int[] year = rng.ints(100_000, 1000, 5000).toArray();
+        int[][] windows = new int[10_000][];
+        for (int q = 0; q < windows.length; q++) {
+            int l = rng.nextInt(50_000);
+            windows[q] = new int[]{l, l + 10_000 + rng.nextInt(40_000)};
+        }
+        long start = System.nanoTime();
+        ProfitRangeIndex yearIndex = new ProfitRangeIndex(year, 5);
+        long indexed = 0;
+        for (int[] w : windows) indexed += yearIndex.maxProfit(w[0], w[1], 5);
+        long indexMs = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        long rescanned = 0;
+        for (int[] w : windows) rescanned += reference.maxProfit(5, Arrays.copyOfRange(year, w[0], w[1] + 1));
+        long rescanMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Test Case 3 Output: " + (indexed == rescanned) + " (index incl. build: " + indexMs
+            + " ms, rescanning: " + rescanMs + " ms)");
+
+        // TEST CASE 4: Out-of-range update and an index too large for one array are rejected
+        String rejected = "";
+        try {
+            index.update(prices.length, 100);
+        } catch (IllegalArgumentException e) {
+            rejected += e.getMessage();
+        }
+        try {
+            new ProfitRangeIndex(year, 1_000_000);
+        } catch (IllegalArgumentException e) {
+            rejected += " | " + e.getMessage();
+        }
+        System.out.println("Test Case 4 Output: " + rejected);
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 5500, days 0..3 with 1 trade: 2000
+ * Test Case 2 Output: true
+ * Test Case 3 Output: true (index incl. build: 281 ms, rescanning: 3579 ms)
+ * Test Case 4 Output: Day 6 outside 0..5 | Index for 100000 days and k = 1000000 needs 1048577048576 longs; at most 2147483639 fit in one array
+ * -----------------------------------------------------------
+ */
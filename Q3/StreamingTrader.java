@@ -0,0 +1,167 @@
+package Q3;
+
+// Algorithm Description (Algorithm Design)
+// CommodityTrader.maxProfit keeps the whole dp[k][i] table (k = 500 over a multi-year tick series is gigabytes)
+// and accumulates profit in int, which overflows on real rupee volumes. StreamingTrader keeps only O(k) state.
+
+// Step 1: Rolling State: For every transaction count j = 1..k we keep two longs:
+// buy[j]  = best cash after the j-th buy so far  (profit of j - 1 finished trades minus the price paid),
+// sell[j] = best cash after the j-th sell so far (profit of j finished trades).
+// Step 2: Transition: For each new price p and each j: buy[j] = max(buy[j], sell[j - 1] - p), then sell[j] = max(sell[j], buy[j] + p).
+// This is the dp[k][i] / maxDiff recurrence of CommodityTrader with the day dimension rolled away.
+// Buying and selling on the same day gains nothing, so updating in place is safe. The transition is a static kernel over
+// caller-owned buy/sell arrays, so BatchTrader runs the same code on its per-thread scratch buffers.
+// Step 3: Streaming: Prices are pushed one at a time (IntConsumer), so the engine can read an IntStream, a PrimitiveIterator
+// or a memory-mapped binary price file. A file is mapped in 1 GB windows, so series larger than the heap need one pass.
+// Efficiency: O(k * n) time, O(k) memory, long arithmetic throughout.
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Question 3: Agricultural Commodity Trading (Streaming Engine)
+ * One-pass, O(k)-memory maximum profit with long arithmetic.
+ */
+public class StreamingTrader implements IntConsumer {
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final int maxTrades;
+    private final long[] buy;
+    private final long[] sell;
+    private long days;
+
+    public StreamingTrader(int maxTrades) {
+        if (maxTrades < 0) throw new IllegalArgumentException("maxTrades must be >= 0");
+        this.maxTrades = maxTrades;
+        this.buy = new long[maxTrades + 1];
+        this.sell = new long[maxTrades + 1];
+        reset();
+    }
+
+    /** Forgets all prices so the engine can be reused for another series. */
+    public void reset() {
+        clear(buy, sell, maxTrades);
+        days = 0;
+    }
+
+    /** Feeds the next day's price. */
+    @Override
+    public void accept(int price) {
+        step(buy, sell, maxTrades, price);
+        days++;
+    }
+
+    // Step 1: State before any price, in buy[0..maxTrades] and sell[0..maxTrades]
+    static void clear(long[] buy, long[] sell, int maxTrades) {
+        Arrays.fill(buy, 0, maxTrades + 1, Long.MIN_VALUE / 2); // No position can be held before the first price
+        Arrays.fill(sell, 0, maxTrades + 1, 0);
+    }
+
+    // Step 2: One day's transition; sell[maxTrades] is then the best profit so far
+    static void step(long[] buy, long[] sell, int maxTrades, int price) {
+        long sellPrevious = 0; // sell[0]: zero trades, zero profit
+        for (int j = 1; j <= maxTrades; j++) {
+            long bought = sellPrevious - price;
+            if (bought > buy[j]) buy[j] = bought;
+            sellPrevious = sell[j];
+            long sold = buy[j] + price;
+            if (sold > sell[j]) sell[j] = sold;
+        }
+    }
+
+    /** Best profit over the prices seen so far with at most maxTrades buy/sell pairs. */
+    public long profit() {
+        return sell[maxTrades];
+    }
+
+    public long days() {
+        return days;
+    }
+
+    public static long maxProfit(int maxTrades, IntStream prices) {
+        StreamingTrader trader = new StreamingTrader(maxTrades);
+        prices.forEachOrdered(trader);
+        return trader.profit();
+    }
+
+    public static long maxProfit(int maxTrades, PrimitiveIterator.OfInt prices) {
+        StreamingTrader trader = new StreamingTrader(maxTrades);
+        prices.forEachRemaining(trader);
+        return trader.profit();
+    }
+
+    /** Reads a file of big-endian int32 prices (the DataOutputStream layout) through memory-mapped windows. */
+    public static long maxProfit(int maxTrades, Path priceFile) throws IOException {
+        StreamingTrader trader = new StreamingTrader(maxTrades);
+        try (FileChannel channel = FileChannel.open(priceFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % 4 != 0) throw new IOException("Truncated price file: " + size + " bytes");
+            for (long offset = 0; offset < size; offset += WINDOW_BYTES) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_BYTES, size - offset));
+                while (window.hasRemaining()) trader.accept(window.getInt());
+            }
+        }
+        return trader.profit();
+    }
+
+    /** Writes prices in the format read by maxProfit(int, Path). */
+    public static void write(Path priceFile, int[] prices) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(priceFile)))) {
+            for (int price : prices) out.writeInt(price);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // TEST CASE 1: Multiple profitable cycles, fed as an IntStream
+        System.out.println("Test Case 1 Output: " + maxProfit(2, IntStream.of(1000, 2000, 1500, 3000, 500, 4000)));
+
+        // TEST CASE 2: Random series agree with the table-based CommodityTrader
+        Random rng = new Random(5);
+        CommodityTrader reference = new CommodityTrader();
+        boolean matches = true;
+        for (int t = 0; t < 500; t++) {
+            int[] prices = rng.ints(1 + rng.nextInt(40), 1, 5000).toArray();
+            int k = rng.nextInt(25);
+            matches &= maxProfit(k, IntStream.of(prices).iterator()) == reference.maxProfit(k, prices);
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: Rupee volumes whose profit does not fit in an int, read from a mapped file
+        int[] swings = new int[1_000_000];
+        for (int i = 0; i < swings.length; i++) swings[i] = i % 2 == 0 ? 1_000_000 : 900_000_000;
+        Path file = Files.createTempFile("prices", ".bin");
+        try {
+            write(file, swings);
+            System.out.println("Test Case 3 Output: " + maxProfit(3, file) + " (int engine: "
+                + reference.maxProfit(3, swings) + ")");
+
+            // TEST CASE 4: k = 500 over 1,000,000 days; the int[k + 1][n] table would need about 2 GB
+            long start = System.nanoTime();
+            long profit = maxProfit(500, file);
+            System.out.println("Test Case 4 Output: " + profit + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms with " + 2 * 8 * 501 + " bytes of state");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 5500
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 2697000000 (int engine: 1798000000)
+ * Test Case 4 Output: 449500000000 in 662 ms with 8016 bytes of state
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,148 @@
+package Q3;
+
+// Algorithm Description (Algorithm Design)
+// When maxTrades is just below n / 2, CommodityTrader falls into the O(k * n) table, which is quadratic in practice.
+// ValleyPeakTrader solves every k at once in O(n log n) by decomposing the series into independent profits.
+
+// Step 1: Valley/Peak Pairs: Scan the prices for each local valley v followed by the next local peak p.
+// Step 2: Stack Merging: Keep earlier (valley, peak) pairs on a stack.
+// - If the new valley is lower than the top pair's valley, the top pair can never merge with anything later,
+//   so it is popped and its profit (peak - valley) is recorded.
+// - If the new peak is at least the top pair's peak, the two pairs (v1, p1) and (v2, p2) become two candidate profits:
+//   p1 - v2 (the "split" gain of trading twice) is recorded, and the pair is replaced by the merged (v1, p2).
+// Step 3: Profit Selection: Every recorded profit is independent. Taking the largest k of them equals the best profit
+// with at most k trades; sorting them descending plays the role of the max-heap.
+// Step 4: Profit Curve: Prefix sums of the sorted profits give the whole profit-vs-k curve in the same pass;
+// curve[k] is the best profit with at most k trades, and it stays flat once k reaches the number of profits.
+// Scratch: The scan and the top-k selection also run on caller-owned buffers, so BatchTrader can evaluate one k per job
+// without allocating.
+// Efficiency: O(n) scan + O(m log m) sort with m <= n / 2, independent of k. Long arithmetic throughout.
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Question 3: Agricultural Commodity Trading (k-independent Engine)
+ * Valley/peak decomposition with the full profit-vs-k curve.
+ */
+public class ValleyPeakTrader {
+
+    /** Independent trade profits, largest first. Taking the first k gives the best profit with at most k trades. */
+    public static long[] tradeProfits(int[] prices) {
+        int n = prices.length;
+        long[] profits = new long[n / 2 + 1];
+        int count = collectProfits(prices, profits, new int[n / 2 + 1], new int[n / 2 + 1]);
+
+        long[] result = Arrays.copyOf(profits, count);
+        Arrays.sort(result);
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            long t = result[i]; result[i] = result[j]; result[j] = t;
+        }
+        return result;
+    }
+
+    // Steps 1-2 into caller buffers of at least n / 2 + 1 entries; returns how many profits were recorded (unsorted)
+    static int collectProfits(int[] prices, long[] profits, int[] stackValley, int[] stackPeak) {
+        int n = prices.length;
+        int count = 0;
+        int top = 0;
+
+        int v, p = 0;
+        while (p < n) {
+            // Next valley: the end of a non-increasing run
+            v = p;
+            while (v < n - 1 && prices[v] >= prices[v + 1]) v++;
+            // Next peak: the end of the non-decreasing run after it
+            p = v + 1;
+            while (p < n && prices[p] >= prices[p - 1]) p++;
+            if (v >= n - 1) break; // Only a falling tail is left
+            int peak = p - 1;
+
+            // A lower valley means the top pair can never be extended again
+            while (top > 0 && prices[v] < prices[stackValley[top - 1]]) {
+                top--;
+                profits[count++] = (long) prices[stackPeak[top]] - prices[stackValley[top]];
+            }
+            // A higher peak: split off the inner gain and merge the outer pair
+            while (top > 0 && prices[peak] >= prices[stackPeak[top - 1]]) {
+                top--;
+                profits[count++] = (long) prices[stackPeak[top]] - prices[v];
+                v = stackValley[top];
+            }
+            stackValley[top] = v;
+            stackPeak[top] = peak;
+            top++;
+        }
+        while (top > 0) {
+            top--;
+            profits[count++] = (long) prices[stackPeak[top]] - prices[stackValley[top]];
+        }
+        return count;
+    }
+
+    /** curve[k] = best profit with at most k trades, for k = 0 .. number of useful trades. */
+    public static long[] profitCurve(int[] prices) {
+        long[] profits = tradeProfits(prices);
+        long[] curve = new long[profits.length + 1];
+        for (int k = 1; k <= profits.length; k++) curve[k] = curve[k - 1] + profits[k - 1];
+        return curve;
+    }
+
+    /** Reads the curve at any k; beyond the last useful trade the profit stays flat. */
+    public static long profitAt(long[] curve, int maxTrades) {
+        return curve[Math.min(maxTrades, curve.length - 1)];
+    }
+
+    public static long maxProfit(int maxTrades, int[] prices) {
+        return profitAt(profitCurve(prices), maxTrades);
+    }
+
+    /** Same as maxProfit(int, int[]) using caller buffers of at least prices.length / 2 + 1 entries. */
+    static long maxProfit(int maxTrades, int[] prices, long[] profits, int[] stackValley, int[] stackPeak) {
+        int count = collectProfits(prices, profits, stackValley, stackPeak);
+        Arrays.sort(profits, 0, count);
+        long total = 0;
+        for (int i = count - 1; i >= Math.max(0, count - maxTrades); i--) total += profits[i];
+        return total;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: From Assignment and multiple profitable cycles
+        System.out.println("Test Case 1 Output: " + maxProfit(2, new int[]{2000, 4000, 1000})
+            + ", " + maxProfit(2, new int[]{1000, 2000, 1500, 3000, 500, 4000}));
+
+        // TEST CASE 2: Random series and every k agree with CommodityTrader
+        Random rng = new Random(13);
+        CommodityTrader reference = new CommodityTrader();
+        boolean matches = true;
+        for (int t = 0; t < 1000; t++) {
+            int[] prices = rng.ints(rng.nextInt(30), 1, 50).toArray();
+            long[] curve = profitCurve(prices);
+            for (int k = 0; k <= prices.length; k++) {
+                matches &= profitAt(curve, k) == reference.maxProfit(k, prices);
+            }
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: k just below n / 2 on 200,000 days, where the DP table is quadratic
+        int[] prices = rng.ints(200_000, 1000, 5000).toArray();
+        int k = prices.length / 2 - 1;
+        long start = System.nanoTime();
+        long[] curve = profitCurve(prices);
+        long curveMs = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        long streaming = StreamingTrader.maxProfit(2000, IntStream.of(prices));
+        long streamingMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Test Case 3 Output: curve for all k in " + curveMs + " ms (k=" + k + ": " + profitAt(curve, k)
+            + "); k=2000 matches streaming=" + (profitAt(curve, 2000) == streaming) + " (" + streamingMs + " ms)");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 2000, 5500
+ * Test Case 2 Output: true
+ * Test Case 3 Output: curve for all k in 40 ms (k=99999: 133119802); k=2000 matches streaming=true (661 ms)
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,276 @@
+package Q4;
+
+// Algorithm Description (Algorithm Design)
+
+// SmartGridOptimizer.main rescans every Source for every demand row, builds a new ArrayList and re-sorts it by cost.
+// With thousands of sources and 8,760 hourly rows a year, that rescan and sort dominates the run.
+// GridDispatcher does the sorting once and dispatches each hour with a single pass over primitive arrays.
+
+// Step 1: Primitive Model: Sources are copied once into parallel arrays (maxCap[], cost[], renewable[]).
+// Step 2: Hour Index: For each hour of the day (0-23) we store the IDs of the sources available in that hour,
+// already sorted by cost. Ties keep the input order, matching the stable sort in main.
+// Step 3: Dispatch (one hour): Districts are served in order from the cheapest available source. Greedy filling only ever
+// moves forward: a source is left either empty or with spare power once every district is served.
+// So one pointer walks the sorted list once (a merge pass), and each district/source allocation is written to an
+// Allocation buffer that the caller reuses. No objects are allocated per hour.
+// Step 4: Results: The Allocation records per-district fulfilment and cost, the individual (district, source, kWh)
+// entries, and the hour's cost and renewable totals. Demand rows with hour >= 24 are mapped to hour % 24.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Question 4: Smart Energy Grid Load Distribution (Dispatch Engine)
+ * Hour-bucketed, cost-sorted source index with allocation-free greedy dispatch.
+ */
+public class GridDispatcher {
+    static final int HOURS_PER_DAY = 24;
+
+    final String[] ids;
+    final int[] maxCap;
+    final double[] cost;
+    final boolean[] renewable;
+    final int[][] byHour; // byHour[h] = cost-sorted source indices available at hour h
+
+    /** Reusable per-hour output; size it once with the largest district count and reuse it for every hour. */
+    public static final class Allocation {
+        int districts;
+        final int[] demand;
+        final int[] fulfilled;
+        final double[] cost;
+        // Entries of district d are entryStart[d] .. entryStart[d + 1] - 1
+        final int[] entryStart;
+        int[] entrySource;
+        int[] entryAmount;
+        double totalCost;
+        long renewableEnergy;
+        long totalEnergy;
+
+        public Allocation(int maxDistricts, int sourceCount) {
+            demand = new int[maxDistricts];
+            fulfilled = new int[maxDistricts];
+            cost = new double[maxDistricts];
+            entryStart = new int[maxDistricts + 1];
+            // Every entry either completes a district or empties a source
+            entrySource = new int[maxDistricts + sourceCount];
+            entryAmount = new int[maxDistricts + sourceCount];
+        }
+
+        // Optimal dispatch may split a district over more sources than the greedy bound
+        void ensureEntries(int count) {
+            if (count > entrySource.length) {
+                int size = Math.max(count, entrySource.length * 2);
+                entrySource = Arrays.copyOf(entrySource, size);
+                entryAmount = Arrays.copyOf(entryAmount, size);
+            }
+        }
+
+        public int districts() { return districts; }
+
+        public int fulfilled(int district) { return fulfilled[district]; }
+
+        public double cost(int district) { return cost[district]; }
+
+        public double percentFulfilled(int district) {
+            return demand[district] == 0 ? 100.0 : (double) fulfilled[district] / demand[district] * 100;
+        }
+
+        public double totalCost() { return totalCost; }
+
+        public long renewableEnergy() { return renewableEnergy; }
+
+        public long totalEnergy() { return totalEnergy; }
+    }
+
+    public GridDispatcher(List<SmartGridOptimizer.Source> sources) {
+        int n = sources.size();
+        ids = new String[n];
+        maxCap = new int[n];
+        cost = new double[n];
+        renewable = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            SmartGridOptimizer.Source s = sources.get(i);
+            ids[i] = s.id;
+            maxCap[i] = s.maxCap;
+            cost[i] = s.cost;
+            renewable[i] = !s.type.equals("Diesel");
+        }
+
+        // Sort once; List.sort is stable, so equal costs keep their input order
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; i++) order.add(i);
+        order.sort(Comparator.comparingDouble(i -> cost[i]));
+
+        byHour = new int[HOURS_PER_DAY][];
+        int[] scratch = new int[n];
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            int count = 0;
+            for (int i : order) {
+                if (sources.get(i).isAvailable(hour)) scratch[count++] = i;
+            }
+            byHour[hour] = Arrays.copyOf(scratch, count);
+        }
+    }
+
+    public int sourceCount() {
+        return ids.length;
+    }
+
+    public String sourceId(int source) {
+        return ids[source];
+    }
+
+    /** Same greedy allocation as SmartGridOptimizer.main for one demand row, written into out. */
+    public void dispatch(int hour, int[] districtDemand, Allocation out) {
+        int[] available = byHour[Math.floorMod(hour, HOURS_PER_DAY)];
+        int districts = districtDemand.length;
+        out.districts = districts;
+        out.totalCost = 0;
+        out.renewableEnergy = 0;
+        out.totalEnergy = 0;
+
+        int pointer = 0;                                           // first source that may still have power
+        int left = available.length > 0 ? maxCap[available[0]] : 0; // power left in that source
+        int entries = 0;
+
+        for (int d = 0; d < districts; d++) {
+            int demand = districtDemand[d];
+            int remaining = demand;
+            double districtCost = 0;
+            out.entryStart[d] = entries;
+
+            while (remaining > 0 && pointer < available.length) {
+                int allocated = Math.min(remaining, left);
+                if (allocated > 0) {
+                    int s = available[pointer];
+                    remaining -= allocated;
+                    left -= allocated;
+                    districtCost += allocated * cost[s];
+                    out.totalEnergy += allocated;
+                    if (renewable[s]) out.renewableEnergy += allocated;
+                    out.entrySource[entries] = s;
+                    out.entryAmount[entries] = allocated;
+                    entries++;
+                }
+                if (left == 0 && ++pointer < available.length) left = maxCap[available[pointer]];
+            }
+
+            out.demand[d] = demand;
+            out.fulfilled[d] = demand - remaining;
+            out.cost[d] = districtCost;
+            out.totalCost += districtCost;
+        }
+        out.entryStart[districts] = entries;
+    }
+
+    /** "S1(20kwh) S2(10kwh) " for one district, matching the report format in main. */
+    public String describe(Allocation allocation, int district) {
+        StringBuilder sourcesUsed = new StringBuilder();
+        for (int e = allocation.entryStart[district]; e < allocation.entryStart[district + 1]; e++) {
+            sourcesUsed.append(ids[allocation.entrySource[e]]).append("(").append(allocation.entryAmount[e]).append("kwh) ");
+        }
+        return sourcesUsed.toString();
+    }
+
+    // Reference: the rescan-and-sort loop from SmartGridOptimizer.main, returning the hour's total cost
+    private static double rescanDispatch(List<SmartGridOptimizer.Source> sources, int hour, int[] distDemands, int[] fulfilled) {
+        for (SmartGridOptimizer.Source s : sources) s.currentCapacity = s.maxCap;
+        List<SmartGridOptimizer.Source> available = new ArrayList<>();
+        for (SmartGridOptimizer.Source s : sources) if (s.isAvailable(hour)) available.add(s);
+        available.sort(Comparator.comparingDouble(s -> s.cost));
+        double totalCost = 0;
+        for (int i = 0; i < distDemands.length; i++) {
+            int remaining = distDemands[i];
+            for (SmartGridOptimizer.Source s : available) {
+                if (remaining <= 0) break;
+                int allocated = Math.min(remaining, s.currentCapacity);
+                if (allocated > 0) {
+                    s.currentCapacity -= allocated;
+                    remaining -= allocated;
+                    totalCost += allocated * s.cost;
+                }
+            }
+            fulfilled[i] = distDemands[i] - remaining;
+        }
+        return totalCost;
+    }
+
+    private static List<SmartGridOptimizer.Source> randomSources(Random rng, int count) {
+        String[] types = {"Solar", "Hydro", "Diesel"};
+        List<SmartGridOptimizer.Source> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = rng.nextInt(24);
+            sources.add(new SmartGridOptimizer.Source("S" + (i + 1), types[rng.nextInt(3)], 10 + rng.nextInt(90),
+                start, start + rng.nextInt(24 - start), 1.0 + rng.nextInt(5) * 0.5));
+        }
+        return sources;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: The assignment sample (Hour 06 and Hour 17)
+        List<SmartGridOptimizer.Source> sample = Arrays.asList(
+            new SmartGridOptimizer.Source("S1", "Solar", 50, 6, 18, 1.0),
+            new SmartGridOptimizer.Source("S2", "Hydro", 40, 0, 23, 1.5),
+            new SmartGridOptimizer.Source("S3", "Diesel", 60, 17, 23, 3.0)
+        );
+        GridDispatcher dispatcher = new GridDispatcher(sample);
+        Allocation allocation = new Allocation(3, dispatcher.sourceCount());
+        StringBuilder line = new StringBuilder();
+        for (int[] row : new int[][]{{6, 20, 15, 25}, {17, 25, 20, 30}}) {
+            dispatcher.dispatch(row[0], new int[]{row[1], row[2], row[3]}, allocation);
+            line.append(String.format("%02d: ", row[0]));
+            for (int d = 0; d < allocation.districts(); d++) line.append(dispatcher.describe(allocation, d)).append("| ");
+            line.append(String.format("Rs. %.2f  ", allocation.totalCost()));
+        }
+        System.out.println("Test Case 1 Output: " + line.toString().trim());
+
+        // TEST CASE 2: Random grids, shortages included, agree with the rescan-and-sort loop
+        Random rng = new Random(16);
+        boolean matches = true;
+        for (int t = 0; t < 500; t++) {
+            List<SmartGridOptimizer.Source> sources = randomSources(rng, 1 + rng.nextInt(30));
+            GridDispatcher grid = new GridDispatcher(sources);
+            int[] demand = rng.ints(1 + rng.nextInt(8), 0, 150).toArray();
+            Allocation out = new Allocation(demand.length, grid.sourceCount());
+            int[] fulfilled = new int[demand.length];
+            int hour = rng.nextInt(24);
+            double expected = rescanDispatch(sources, hour, demand, fulfilled);
+            grid.dispatch(hour, demand, out);
+            matches &= Math.abs(out.totalCost() - expected) < 1e-6;
+            for (int d = 0; d < demand.length; d++) matches &= out.fulfilled(d) == fulfilled[d];
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: 5,000 sources over a year of hourly rows (8,760), index vs. rescan-and-sort
+        List<SmartGridOptimizer.Source> sources = randomSources(rng, 5000);
+        int[][] year = new int[8760][];
+        for (int h = 0; h < year.length; h++) year[h] = rng.ints(3, 500, 20_000).toArray();
+        long start = System.nanoTime();
+        GridDispatcher grid = new GridDispatcher(sources);
+        Allocation out = new Allocation(3, grid.sourceCount());
+        double indexed = 0;
+        for (int h = 0; h < year.length; h++) {
+            grid.dispatch(h, year[h], out);
+            indexed += out.totalCost();
+        }
+        long indexMs = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        double rescanned = 0;
+        int[] fulfilled = new int[3];
+        for (int h = 0; h < year.length; h++) rescanned += rescanDispatch(sources, h % HOURS_PER_DAY, year[h], fulfilled);
+        long rescanMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Test Case 3 Output: " + (Math.abs(indexed - rescanned) < 1e-3) + " (index incl. build: "
+            + indexMs + " ms, rescan and sort: " + rescanMs + " ms)");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 06: S1(20kwh) | S1(15kwh) | S1(15kwh) S2(10kwh) | Rs. 65.00  17: S1(25kwh) | S1(20kwh) | S1(5kwh) S2(25kwh) | Rs. 87.50
+ * Test Case 2 Output: true
+ * Test Case 3 Output: true (index incl. build: 261 ms, rescan and sort: 4121 ms)
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,392 @@
+package Q4;
+
+// Algorithm Description (Algorithm Design)
+// SmartGridOptimizer walks a hardcoded int[][] of demand rows one by one and printf's every district. For a year of
+// hourly rows, the console formatting costs more than the allocation itself. Each row resets source capacity, so
+// rows are independent. GridSimulation streams a demand CSV and dispatches batches of rows in parallel.
+
+// Step 1: Streaming Ingestion: The CSV ("hour,A,B,C,..." header, then one row per hour) is read through a FileChannel
+// in fixed-size chunks. The bytes are parsed straight into a flat int[] batch (hour, demand...) with no String per line.
+// A row split across two chunks simply carries its parser state into the next chunk.
+// Step 2: Parallel Evaluation: Each full batch is submitted to a ForkJoinPool. A worker dispatches its rows with the shared
+// GridDispatcher, which is read-only, using its own ThreadLocal Allocation buffer. It formats the report lines for the
+// batch into one StringBuilder, so formatting runs in parallel too.
+// Step 3: Reduction: Each batch returns partial Totals (cost in paisa, energy, renewable share, shortages).
+// Partials are merged in file order, and integer sums make the result identical to a serial run.
+// Step 4: Buffered Report: Finished batches are written in submission order through one large BufferedWriter.
+// At most a few batches are in flight at a time, so memory stays bounded however long the file is.
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Question 4: Smart Energy Grid Load Distribution (Year-long Simulation)
+ * Chunked NIO demand ingestion, parallel hourly dispatch, ordered buffered report.
+ */
+public class GridSimulation {
+    static final int CHUNK_BYTES = 1 << 20;
+    static final int ROWS_PER_BATCH = 512;
+    static final int REPORT_BUFFER_CHARS = 1 << 20;
+
+    /** Year (or any span) totals; merged in file order from per-batch partials. */
+    public static final class Totals {
+        long rows;
+        long districtRows;
+        long demand;
+        long fulfilled;
+        long renewable;
+        long costPaisa;
+        long shortages; // district-hours below 90% (90-110% counts as satisfied, as in SmartGridOptimizer)
+
+        void merge(Totals other) {
+            rows += other.rows;
+            districtRows += other.districtRows;
+            demand += other.demand;
+            fulfilled += other.fulfilled;
+            renewable += other.renewable;
+            costPaisa += other.costPaisa;
+            shortages += other.shortages;
+        }
+
+        public double totalCost() { return costPaisa / 100.0; }
+
+        public double renewableShare() { return fulfilled == 0 ? 0 : (double) renewable / fulfilled * 100; }
+
+        public double fulfilledShare() { return demand == 0 ? 100 : (double) fulfilled / demand * 100; }
+
+        @Override
+        public String toString() {
+            return String.format("%d hours, %d district-hours | Cost Rs. %.2f | Fulfilled %.1f%% | Renewable %.1f%% | %d shortages",
+                rows, districtRows, totalCost(), fulfilledShare(), renewableShare(), shortages);
+        }
+    }
+
+    private static final class Batch {
+        final int[] rows; // (hour, demand...) per row
+        int count;
+        final StringBuilder text = new StringBuilder();
+        final Totals totals = new Totals();
+
+        Batch(int rowWidth) {
+            rows = new int[ROWS_PER_BATCH * rowWidth];
+        }
+    }
+
+    private final GridDispatcher dispatcher;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private String[] districtNames; // Set from the header of the file being run; one run at a time per instance
+    private ThreadLocal<GridDispatcher.Allocation> allocation;
+
+    public GridSimulation(GridDispatcher dispatcher) {
+        this(dispatcher, ForkJoinPool.commonPool(), CHUNK_BYTES);
+    }
+
+    public GridSimulation(GridDispatcher dispatcher, ForkJoinPool pool, int chunkBytes) {
+        this.dispatcher = dispatcher;
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /** Simulates every row of demandCsv and writes one report line per district-hour. */
+    public Totals run(Path demandCsv, Path reportCsv) throws IOException {
+        try (Writer report = Files.newBufferedWriter(reportCsv, StandardCharsets.UTF_8)) {
+            return run(demandCsv, report);
+        }
+    }
+
+    public Totals run(Path demandCsv, Writer report) throws IOException {
+        Totals totals = new Totals();
+        districtNames = null;
+        BufferedWriter out = new BufferedWriter(report, REPORT_BUFFER_CHARS);
+        ArrayDeque<ForkJoinTask<Batch>> inFlight = new ArrayDeque<>();
+        int maxInFlight = 2 * pool.getParallelism() + 1;
+
+        try (FileChannel channel = FileChannel.open(demandCsv, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(chunkBytes);
+            ByteArrayOutputStream header = new ByteArrayOutputStream(); // Raw bytes, decoded as UTF-8 once complete
+            int rowWidth = 0;
+            Batch batch = null;
+            int field = 0, value = 0;
+            boolean inNumber = false;
+            long line = 1;
+
+            while (channel.read(chunk) > 0 || chunk.position() > 0) {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    byte b = chunk.get();
+                    if (districtNames == null) {
+                        // Step 1: Header line names the districts
+                        if (b == '\n') {
+                            startReport(header.toString(StandardCharsets.UTF_8).trim(), out);
+                            rowWidth = districtNames.length + 1;
+                            batch = new Batch(rowWidth);
+                            line++;
+                        } else {
+                            header.write(b);
+                        }
+                        continue;
+                    }
+                    if (b >= '0' && b <= '9') {
+                        value = value * 10 + (b - '0');
+                        inNumber = true;
+                    } else if (b == ',' || b == '\n') {
+                        if (inNumber) {
+                            if (field == rowWidth) throw new IOException("Line " + line + ": more than " + rowWidth + " fields");
+                            batch.rows[batch.count * rowWidth + field++] = value;
+                        } else if (b == ',' || field > 0) {
+                            throw new IOException("Line " + line + ": empty field");
+                        }
+                        value = 0;
+                        inNumber = false;
+                        if (b == '\n') {
+                            if (field > 0) {
+                                if (field != rowWidth) throw new IOException("Line " + line + ": expected " + rowWidth + " fields");
+                                if (++batch.count == ROWS_PER_BATCH) {
+                                    submit(batch, inFlight, maxInFlight, out, totals);
+                                    batch = new Batch(rowWidth);
+                                }
+                            }
+                            field = 0;
+                            line++;
+                        }
+                    } else if (b != '\r' && b != ' ') {
+                        throw new IOException("Line " + line + ": unexpected character '" + (char) b + "'");
+                    }
+                }
+                chunk.clear();
+            }
+
+            if (districtNames == null) throw new IOException("Missing header in " + demandCsv);
+            // Last row without a trailing newline
+            if (inNumber || field > 0) {
+                if (!inNumber || field + 1 != rowWidth) throw new IOException("Line " + line + ": expected " + rowWidth + " fields");
+                batch.rows[batch.count++ * rowWidth + field] = value;
+            }
+            if (batch.count > 0) submit(batch, inFlight, maxInFlight, out, totals);
+        }
+
+        while (!inFlight.isEmpty()) drain(inFlight.poll(), out, totals);
+        out.flush();
+        return totals;
+    }
+
+    private void startReport(String header, Writer out) throws IOException {
+        String[] names = header.split(",");
+        if (names.length < 2) throw new IOException("Header needs an hour column and at least one district: " + header);
+        districtNames = Arrays.copyOfRange(names, 1, names.length);
+        int districts = districtNames.length;
+        allocation = ThreadLocal.withInitial(() -> new GridDispatcher.Allocation(districts, dispatcher.sourceCount()));
+        out.write("hour,district,demand,fulfilled,percent,cost_rs,sources\n");
+    }
+
+    private void submit(Batch batch, ArrayDeque<ForkJoinTask<Batch>> inFlight, int maxInFlight, Writer out,
+                        Totals totals) throws IOException {
+        inFlight.add(pool.submit(() -> evaluate(batch)));
+        if (inFlight.size() >= maxInFlight) drain(inFlight.poll(), out, totals);
+    }
+
+    private void drain(ForkJoinTask<Batch> task, Writer out, Totals totals) throws IOException {
+        Batch done = task.join();
+        out.append(done.text);
+        totals.merge(done.totals);
+    }
+
+    // Step 2: Runs on a pool thread
+    private Batch evaluate(Batch batch) {
+        int districts = districtNames.length;
+        int rowWidth = districts + 1;
+        int[] demand = new int[districts];
+        GridDispatcher.Allocation a = allocation.get();
+        StringBuilder text = batch.text;
+        Totals totals = batch.totals;
+
+        for (int r = 0; r < batch.count; r++) {
+            int hour = batch.rows[r * rowWidth];
+            System.arraycopy(batch.rows, r * rowWidth + 1, demand, 0, districts);
+            dispatcher.dispatch(hour, demand, a);
+            totals.rows++;
+            totals.renewable += a.renewableEnergy();
+
+            for (int d = 0; d < districts; d++) {
+                int fulfilled = a.fulfilled(d);
+                long paisa = Math.round(a.cost(d) * 100);
+                totals.districtRows++;
+                totals.demand += demand[d];
+                totals.fulfilled += fulfilled;
+                totals.costPaisa += paisa;
+                if (fulfilled * 10L < demand[d] * 9L) totals.shortages++;
+
+                // hour,district,demand,fulfilled,percent,cost_rs,sources without String.format
+                long perMille = demand[d] == 0 ? 1000 : (fulfilled * 1000L + demand[d] / 2) / demand[d];
+                text.append(hour).append(',').append(districtNames[d]).append(',').append(demand[d]).append(',')
+                    .append(fulfilled).append(',').append(perMille / 10).append('.').append(perMille % 10).append(',')
+                    .append(paisa / 100).append('.');
+                if (paisa % 100 < 10) text.append('0');
+                text.append(paisa % 100).append(',');
+                for (int e = a.entryStart[d]; e < a.entryStart[d + 1]; e++) {
+                    if (e > a.entryStart[d]) text.append(' ');
+                    text.append(dispatcher.sourceId(a.entrySource[e])).append(':').append(a.entryAmount[e]);
+                }
+                text.append('\n');
+            }
+        }
+        return batch;
+    }
+
+    static void writeDemandCsv(Path file, String[] districtNames, int[][] rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("hour," + String.join(",", districtNames));
+            for (int[] row : rows) {
+                out.write('\n');
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) out.write(',');
+                    out.write(Integer.toString(row[i]));
+                }
+            }
+            out.write('\n');
+        }
+    }
+
+    // Reference: the SmartGridOptimizer loop (line-by-line read, one printf per district), returning total cost in paisa
+    private static long serialBaseline(GridDispatcher dispatcher, Path demandCsv, Path reportCsv) throws IOException {
+        long costPaisa = 0;
+        try (BufferedReader in = Files.newBufferedReader(demandCsv);
+             PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportCsv))) {
+            String[] names = in.readLine().split(",");
+            GridDispatcher.Allocation a = new GridDispatcher.Allocation(names.length - 1, dispatcher.sourceCount());
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String[] parts = line.split(",");
+                int[] demand = new int[parts.length - 1];
+                for (int i = 0; i < demand.length; i++) demand[i] = Integer.parseInt(parts[i + 1]);
+                int hour = Integer.parseInt(parts[0]);
+                dispatcher.dispatch(hour, demand, a);
+                for (int d = 0; d < demand.length; d++) {
+                    costPaisa += Math.round(a.cost(d) * 100);
+                    out.printf("%02d   |    %s     |  %d    |   %.1f%%   | %s | %.2f\n",
+                        hour, names[d + 1], demand[d], a.percentFulfilled(d), dispatcher.describe(a, d), a.cost(d));
+                }
+            }
+        }
+        return costPaisa;
+    }
+
+    private static List<SmartGridOptimizer.Source> fleet(Random rng, int count) {
+        List<SmartGridOptimizer.Source> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            boolean solar = rng.nextInt(10) < 3;
+            String type = solar ? "Solar" : rng.nextBoolean() ? "Hydro" : "Diesel";
+            sources.add(new SmartGridOptimizer.Source("S" + (i + 1), type, 50 + rng.nextInt(200), solar ? 6 : 0,
+                solar ? 18 : 23, solar ? 1.0 : type.equals("Hydro") ? 1.5 : 3.0));
+        }
+        return sources;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path demandCsv = Files.createTempFile("demand", ".csv");
+        Path reportCsv = Files.createTempFile("report", ".csv");
+        Path baselineCsv = Files.createTempFile("baseline", ".txt");
+        try {
+            // TEST CASE 1: The assignment sample as a CSV
+            List<SmartGridOptimizer.Source> sample = Arrays.asList(
+                new SmartGridOptimizer.Source("S1", "Solar", 50, 6, 18, 1.0),
+                new SmartGridOptimizer.Source("S2", "Hydro", 40, 0, 23, 1.5),
+                new SmartGridOptimizer.Source("S3", "Diesel", 60, 17, 23, 3.0)
+            );
+            writeDemandCsv(demandCsv, new String[]{"A", "B", "C"}, new int[][]{{6, 20, 15, 25}, {17, 25, 20, 30}});
+            Totals sampleTotals = new GridSimulation(new GridDispatcher(sample)).run(demandCsv, reportCsv);
+            System.out.println("Test Case 1 Output: " + sampleTotals);
+            System.out.println("  " + String.join("\n  ", Files.readAllLines(reportCsv)));
+
+            // TEST CASE 2: 64-byte chunks (rows split everywhere) give the same report and totals as 1 MB chunks
+            Random rng = new Random(18);
+            GridDispatcher grid = new GridDispatcher(fleet(rng, 300));
+            String[] names = new String[12];
+            for (int d = 0; d < names.length; d++) names[d] = "D" + (d + 1);
+            int[][] rows = new int[2000][];
+            for (int h = 0; h < rows.length; h++) {
+                rows[h] = new int[names.length + 1];
+                rows[h][0] = h;
+                for (int d = 1; d <= names.length; d++) rows[h][d] = rng.nextInt(3000);
+            }
+            writeDemandCsv(demandCsv, names, rows);
+            Totals large = new GridSimulation(grid).run(demandCsv, reportCsv);
+            String expected = Files.readString(reportCsv);
+            Totals small = new GridSimulation(grid, ForkJoinPool.commonPool(), 64).run(demandCsv, reportCsv);
+            System.out.println("Test Case 2 Output: " + (expected.equals(Files.readString(reportCsv))
+                && large.toString().equals(small.toString())));
+
+            // TEST CASE 3: One year (8,760 hours) x 100 districts over 1,000 sources, pipeline vs. serial printf loop
+            GridDispatcher year = new GridDispatcher(fleet(rng, 1000));
+            names = new String[100];
+            for (int d = 0; d < names.length; d++) names[d] = "D" + (d + 1);
+            rows = new int[8760][];
+            for (int h = 0; h < rows.length; h++) {
+                rows[h] = new int[names.length + 1];
+                rows[h][0] = h;
+                for (int d = 1; d <= names.length; d++) rows[h][d] = 500 + rng.nextInt(1000);
+            }
+            writeDemandCsv(demandCsv, names, rows);
+            long start = System.nanoTime();
+            Totals totals = new GridSimulation(year).run(demandCsv, reportCsv);
+            long pipelineMs = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            long baselinePaisa = serialBaseline(year, demandCsv, baselineCsv);
+            long baselineMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Test Case 3 Output: " + totals);
+            System.out.println("  same cost as serial: " + (totals.costPaisa == baselinePaisa) + " (pipeline: " + pipelineMs
+                + " ms on " + ForkJoinPool.commonPool().getParallelism() + " workers, serial printf: " + baselineMs + " ms)");
+
+            // TEST CASE 4: Devanagari district names; 92.5% is satisfied (within the 10% flexibility), 82.2% is a shortage
+            List<SmartGridOptimizer.Source> one = Arrays.asList(new SmartGridOptimizer.Source("S1", "Solar", 57, 6, 18, 1.0));
+            writeDemandCsv(demandCsv, new String[]{"काठमाडौं", "पोखरा"}, new int[][]{{6, 20, 40}, {7, 20, 45}});
+            Totals nepali = new GridSimulation(new GridDispatcher(one)).run(demandCsv, reportCsv);
+            System.out.println("Test Case 4 Output: " + nepali.shortages + " shortage");
+            System.out.println("  " + String.join("\n  ", Files.readAllLines(reportCsv, StandardCharsets.UTF_8)));
+        } finally {
+            Files.deleteIfExists(demandCsv);
+            Files.deleteIfExists(reportCsv);
+            Files.deleteIfExists(baselineCsv);
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 2 hours, 6 district-hours | Cost Rs. 152.50 | Fulfilled 100.0% | Renewable 100.0% | 0 shortages
+ *   hour,district,demand,fulfilled,percent,cost_rs,sources
+ *   6,A,20,20,100.0,20.00,S1:20
+ *   6,B,15,15,100.0,15.00,S1:15
+ *   6,C,25,25,100.0,30.00,S1:15 S2:10
+ *   17,A,25,25,100.0,25.00,S1:25
+ *   17,B,20,20,100.0,20.00,S1:20
+ *   17,C,30,30,100.0,42.50,S1:5 S2:25
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 8760 hours, 876000 district-hours | Cost Rs. 1515728320.00 | Fulfilled 100.0% | Renewable 76.4% | 149 shortages
+ *   same cost as serial: true (pipeline: 1503 ms on 1 workers, serial printf: 5233 ms)
+ * Test Case 4 Output: 1 shortage
+ *   hour,district,demand,fulfilled,percent,cost_rs,sources
+ *   6,काठमाडौं,20,20,100.0,20.00,S1:20
+ *   6,पोखरा,40,37,92.5,37.00,S1:37
+ *   7,काठमाडौं,20,20,100.0,20.00,S1:20
+ *   7,पोखरा,45,37,82.2,37.00,S1:37
+ * (single-core sandbox: the gain here is from parsing and formatting; batches spread across cores on real hardware)
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,862 @@
+package Q4;
+
+// Algorithm Description (Algorithm Design)
+// GridDispatcher (like SmartGridOptimizer.main) fills district A, then B, then C from the cheapest sources.
+// Once delivery costs depend on the (source, district) pair, that order is no longer cost-optimal. In a shortage,
+// the last district gets nothing while the first is fully served. MinCostDispatcher solves each hour as a min-cost flow
+// for any number of districts.
+
+// Step 1: Network: A super source feeds every available source (capacity = maxCap, cost 0) and a shortage node U
+// (unlimited). Source s reaches district d at cost[s] + delivery[s][d] with no capacity limit. U reaches each district
+// through 10 tiers, one per 10% of its demand, each tier dearer than the last: tier k costs k * (most expensive kWh + 1).
+// A district must receive exactly its demand. Unserved kWh arrive from U, and because the penalty is convex,
+// shortages are spread so that every district misses a similar percentage (the ±10% bands of Task 4).
+// Step 2: Network Simplex: Costs are held in paisa (long) so reduced costs are exact. The flow is kept on a spanning
+// tree (parent, thread order, subtree sizes) whose node potentials give every tree arc zero reduced cost. A non-tree arc
+// with a negative reduced cost enters, flow is pushed round the cycle it closes up to the first blocking arc, and that
+// arc leaves; the moved subtree's potentials shift by one constant. Entering arcs come from a candidate list (each
+// district's 16 cheapest feeders, each source's 4 cheapest districts, and every supply, shortage and tier arc) searched
+// in blocks; once the list prices out, all transport arcs are priced once and those that would pay are listed too.
+// The flow is optimal when that full pricing finds none.
+// Step 3: Warm Start: Arc costs never change between hours, so the previous tree and its potentials still price every
+// arc correctly. The new supplies and demands are routed through the old tree, which pushes a few tree arcs outside
+// their bounds; dual simplex pivots swap each of them for the cheapest non-tree arc across the same cut until the flow
+// is feasible again, and primal pivots finish. A source that just opened starts empty instead of full, so the 06:00
+// solar ramp costs primal pivots instead of dual ones. If the repair takes more than a quarter as many dual pivots as
+// there are nodes (the 19:00 ramp, when the solar sources close), the hour starts cold from the all-shortage basis.
+// Step 4: Results: Flows are written into the same GridDispatcher.Allocation buffer used by the greedy engine.
+// Step 5: Deadline: dispatch can be given a per-hour deadline, read every 32 pivots. Primal pivots always keep the flow
+// feasible, so when the deadline passes the current flow is topped up from spare supply in cost order, as
+// GridDispatcher would, and lastOptimal() is false. The next hour then starts cold.
+// Efficiency: a primal pivot prices one block of candidates and walks one cycle and one subtree. A dual pivot only
+// scans listed arcs at the smaller side of its cut. At 1000 sources x 200 districts a cold hour takes about 12,000
+// pivots and a warm hour about 150.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Question 4: Smart Energy Grid Load Distribution (Optimal Dispatch)
+ * Warm-started network simplex from sources to any number of districts with fair shortage sharing.
+ */
+public class MinCostDispatcher {
+    static final int TIERS = 10;
+    private static final long INF = Long.MAX_VALUE / 4;
+    private static final int SUPER = 0;
+    private static final int STATE_UPPER = -1, STATE_TREE = 0, STATE_LOWER = 1; // Sign that makes a useful reduced cost negative
+    private static final int UP = 1, DOWN = -1;                                 // Tree arc points to / away from the parent
+    private static final int DEADLINE_CHECK = 32;                               // Pivots between clock reads
+    private static final int PER_DISTRICT = 16, PER_SOURCE = 4;                 // Transport arcs listed before any pricing
+
+    private final GridDispatcher grid;
+    private final int sources, districts, nodes, root;
+    private final int shortageNode;          // U
+    private final int supplyArc;             // SUPER -> source s is arc supplyArc + s
+    private final int shortageArc;           // SUPER -> U
+    private final int tierArc;               // U -> district d, tier k is arc tierArc + d * TIERS + k
+    private final int arcs;                  // Real arcs; node u's artificial arc u -> root is arcs + u
+    private final int[] tail, head, state;
+    private final long[] cost, cap, flow;    // paisa per kWh, kWh
+    private final long[] tierCost;
+    private final int[] supplyCap;
+    private final int[] demand;
+    private final int[] candidates;          // Arcs priced every pivot; the other transport arcs only when these run out
+    private final boolean[] listed;
+    private final int[][] incident;          // Listed arcs at each node, for the dual ratio test
+    private final int[] degree;
+    private final int dualLimit;             // Dual pivots a warm start may spend before a cold start is cheaper
+    private int candidateCount, nextArc;
+
+    // Spanning tree: preorder thread, subtree sizes and last preorder successor of each node
+    private final int[] parent, pred, predDir, thread, revThread, succNum, lastSucc;
+    private final long[] potential, net;
+    private final int[] dirtyRevs, inCut;
+    private int cutStamp;
+
+    // Current pivot
+    private int inArc, join, uIn, vIn, uOut;
+    private long delta, bestReduced;
+
+    private boolean warm, warmStarted, optimal;
+    private long objective;
+    private int pivots;
+
+    /** deliveryCost[s][d] is an extra Rs/kWh for sending source s to district d; null means none. */
+    public MinCostDispatcher(GridDispatcher grid, int districts, double[][] deliveryCost) {
+        this.grid = grid;
+        this.sources = grid.sourceCount();
+        this.districts = districts;
+        this.shortageNode = sources + 1;
+        this.nodes = sources + 2 + districts;
+        this.root = nodes;
+        supplyArc = sources * districts;
+        shortageArc = supplyArc + sources;
+        tierArc = shortageArc + 1;
+        arcs = tierArc + districts * TIERS;
+
+        tail = new int[arcs + nodes];
+        head = new int[arcs + nodes];
+        state = new int[arcs + nodes];
+        cost = new long[arcs + nodes];
+        cap = new long[arcs + nodes];
+        flow = new long[arcs + nodes];
+        long maxCost = 0;
+        for (int s = 0; s < sources; s++) {
+            for (int d = 0; d < districts; d++) {
+                double rs = grid.cost[s] + (deliveryCost == null ? 0 : deliveryCost[s][d]);
+                long paisa = Math.round(rs * 100);
+                if (paisa < 0) throw new IllegalArgumentException("Negative cost for " + grid.sourceId(s));
+                int e = s * districts + d;
+                tail[e] = sourceNode(s);
+                head[e] = districtNode(d);
+                cost[e] = paisa;
+                cap[e] = INF;
+                maxCost = Math.max(maxCost, paisa);
+            }
+            tail[supplyArc + s] = SUPER;
+            head[supplyArc + s] = sourceNode(s);
+        }
+        tail[shortageArc] = SUPER;
+        head[shortageArc] = shortageNode;
+        cap[shortageArc] = INF;
+        tierCost = new long[TIERS];
+        for (int k = 0; k < TIERS; k++) tierCost[k] = (k + 1) * (maxCost + 1);
+        for (int d = 0; d < districts; d++) {
+            for (int k = 0; k < TIERS; k++) {
+                int e = tierArc + d * TIERS + k;
+                tail[e] = shortageNode;
+                head[e] = districtNode(d);
+                cost[e] = tierCost[k];
+            }
+        }
+        for (int u = 0; u < nodes; u++) {
+            tail[arcs + u] = u;
+            head[arcs + u] = root;
+            cap[arcs + u] = INF;
+        }
+        supplyCap = new int[sources];
+        demand = new int[districts];
+        candidates = new int[arcs];
+        listed = new boolean[arcs];
+        dualLimit = Math.max(64, nodes / 4);
+        incident = new int[nodes][0];
+        degree = new int[nodes];
+        listCheapest();
+
+        parent = new int[nodes + 1];
+        pred = new int[nodes + 1];
+        predDir = new int[nodes + 1];
+        thread = new int[nodes + 1];
+        revThread = new int[nodes + 1];
+        succNum = new int[nodes + 1];
+        lastSucc = new int[nodes + 1];
+        potential = new long[nodes + 1];
+        net = new long[nodes + 1];
+        dirtyRevs = new int[nodes + 1];
+        inCut = new int[nodes + 1];
+    }
+
+    /** Drops the previous hour's basis so the next dispatch starts cold. */
+    public void reset() {
+        warm = false;
+    }
+
+    /** Min-cost allocation of one hour; unmet demand is shared across districts in 10% bands. */
+    public void dispatch(int hour, int[] districtDemand, GridDispatcher.Allocation out) {
+        dispatch(hour, districtDemand, out, false, 0);
+    }
+
+    /**
+     * Same as dispatch(hour, districtDemand, out), but stops pivoting once System.nanoTime() passes deadlineNanos; the
+     * hour then gets the current (feasible, not yet optimal) flow with any spare supply added, and lastOptimal() is false.
+     */
+    public void dispatch(int hour, int[] districtDemand, GridDispatcher.Allocation out, long deadlineNanos) {
+        dispatch(hour, districtDemand, out, true, deadlineNanos);
+    }
+
+    private void dispatch(int hour, int[] districtDemand, GridDispatcher.Allocation out, boolean bounded, long deadlineNanos) {
+        if (districtDemand.length != districts) {
+            throw new IllegalArgumentException("Expected " + districts + " district demands, got " + districtDemand.length);
+        }
+        for (int d = 0; d < districts; d++) {
+            if (districtDemand[d] < 0) throw new IllegalArgumentException("Negative demand for district " + d);
+        }
+
+        // Step 1: This hour's capacities
+        System.arraycopy(districtDemand, 0, demand, 0, districts);
+        Arrays.fill(supplyCap, 0);
+        for (int s : grid.byHour[Math.floorMod(hour, GridDispatcher.HOURS_PER_DAY)]) supplyCap[s] = grid.maxCap[s];
+        for (int s = 0; s < sources; s++) cap[supplyArc + s] = supplyCap[s];
+        for (int d = 0; d < districts; d++) {
+            for (int k = 0; k < TIERS; k++) {
+                cap[tierArc + d * TIERS + k] = ceilDiv((long) demand[d] * (k + 1)) - ceilDiv((long) demand[d] * k);
+            }
+        }
+
+        // Step 3: Previous basis made feasible again by dual pivots, else the all-shortage basis
+        pivots = 0;
+        optimal = false;
+        warmStarted = warm && warmStart(bounded, deadlineNanos);
+        if (!warmStarted) coldStart();
+        warm = true;
+
+        // Step 2: Pivot until no arc prices out (Step 5: or the deadline passes)
+        while (true) {
+            if (bounded && pivots % DEADLINE_CHECK == 0 && System.nanoTime() - deadlineNanos > 0) break;
+            if (!findEnteringArc()) {
+                optimal = true;
+                break;
+            }
+            findJoinNode();
+            boolean change = findLeavingArc();
+            changeFlow(change);
+            if (change) {
+                updateTreeStructure();
+                updatePotential();
+            }
+            pivots++;
+        }
+        if (!optimal) topUp(hour);
+        fill(out);
+    }
+
+    /** False when the last dispatch hit its deadline before the simplex finished. */
+    public boolean lastOptimal() {
+        return optimal;
+    }
+
+    /** True when the last dispatch started from the previous hour's basis. */
+    public boolean lastWarm() {
+        return warmStarted;
+    }
+
+    /** Simplex pivots used by the last dispatch (lower after a warm start). */
+    public int lastPivots() {
+        return pivots;
+    }
+
+    /** Paisa cost of the last dispatch including shortage penalties. */
+    long lastObjective() {
+        return objective;
+    }
+
+    // Each district's cheapest feeders and each source's cheapest districts, plus every non-transport arc
+    private void listCheapest() {
+        Integer[] order = new Integer[Math.max(sources, districts)];
+        for (int d = 0; d < districts; d++) {
+            for (int s = 0; s < sources; s++) order[s] = s * districts + d;
+            Arrays.sort(order, 0, sources, (x, y) -> Long.compare(cost[x], cost[y]));
+            for (int i = 0; i < Math.min(sources, PER_DISTRICT); i++) list(order[i]);
+        }
+        for (int s = 0; s < sources; s++) {
+            for (int d = 0; d < districts; d++) order[d] = s * districts + d;
+            Arrays.sort(order, 0, districts, (x, y) -> Long.compare(cost[x], cost[y]));
+            for (int i = 0; i < Math.min(districts, PER_SOURCE); i++) list(order[i]);
+        }
+        for (int e = supplyArc; e < arcs; e++) list(e);
+    }
+
+    private void list(int e) {
+        if (listed[e]) return;
+        listed[e] = true;
+        candidates[candidateCount++] = e;
+        addIncident(tail[e], e);
+        addIncident(head[e], e);
+    }
+
+    private void addIncident(int u, int e) {
+        if (degree[u] == incident[u].length) incident[u] = Arrays.copyOf(incident[u], 2 * degree[u] + 4);
+        incident[u][degree[u]++] = e;
+    }
+
+    private int sourceNode(int s) { return 1 + s; }
+
+    private int districtNode(int d) { return sources + 2 + d; }
+
+    private static int ceilDiv(long x) {
+        return (int) ((x + TIERS - 1) / TIERS);
+    }
+
+    // Step 3: Cold basis. SUPER sends all demand to U, U feeds every district through its tiers (tier 0 in the tree, the
+    // rest at capacity), and every other node hangs from the root by an empty artificial arc. Zero-flow tree arcs point
+    // to their parent and full ones away from it, so the tree is strongly feasible.
+    private void coldStart() {
+        Arrays.fill(state, 0, arcs, STATE_LOWER);
+        Arrays.fill(flow, 0);
+        long total = 0;
+        for (int d = 0; d < districts; d++) total += demand[d];
+
+        parent[root] = -1;
+        pred[root] = -1;
+        int last = root;
+        last = attach(last, SUPER, root, arcs + SUPER, UP);
+        if (total > 0) {
+            flow[shortageArc] = total;
+            last = attach(last, shortageNode, SUPER, shortageArc, DOWN);
+            for (int d = 0; d < districts; d++) {
+                if (demand[d] == 0) continue;
+                int e = tierArc + d * TIERS;
+                flow[e] = cap[e];
+                last = attach(last, districtNode(d), shortageNode, e, DOWN);
+                for (int k = 1; k < TIERS; k++) {
+                    flow[e + k] = cap[e + k];
+                    if (cap[e + k] > 0) state[e + k] = STATE_UPPER;
+                }
+            }
+        } else {
+            last = attach(last, shortageNode, root, arcs + shortageNode, UP);
+        }
+        for (int s = 0; s < sources; s++) last = attach(last, sourceNode(s), root, arcs + sourceNode(s), UP);
+        for (int d = 0; d < districts; d++) {
+            if (total == 0 || demand[d] == 0) last = attach(last, districtNode(d), root, arcs + districtNode(d), UP);
+        }
+        thread[last] = root;
+        revThread[root] = last;
+
+        // Subtree sizes and last successors, children before parents
+        for (int u = 0; u <= nodes; u++) {
+            succNum[u] = 1;
+            lastSucc[u] = u;
+        }
+        for (int u = revThread[root]; u != root; u = revThread[u]) {
+            int p = parent[u];
+            succNum[p] += succNum[u];
+            if (lastSucc[p] == p) lastSucc[p] = lastSucc[u];
+        }
+        potential[root] = 0;
+        for (int u = thread[root]; u != root; u = thread[u]) {
+            int e = pred[u];
+            potential[u] = potential[parent[u]] + (predDir[u] == UP ? -cost[e] : cost[e]);
+        }
+        nextArc = 0;
+    }
+
+    private int attach(int last, int u, int p, int e, int dir) {
+        parent[u] = p;
+        pred[u] = e;
+        predDir[u] = dir;
+        state[e] = STATE_TREE;
+        thread[last] = u;
+        revThread[u] = last;
+        return u;
+    }
+
+    // Step 3: Warm basis. Costs never change, so the previous tree and its potentials still price every arc correctly
+    // (the basis stays dual feasible); only the flows move. Non-tree arcs sit at zero or at their new capacity and the
+    // tree arcs carry what is left, leaves first. Tree arcs pushed outside their bounds are then removed one at a time
+    // by dual simplex pivots. False sends the hour to a cold start: the repair reached dualLimit, no listed arc can carry
+    // the flow across a cut, or the deadline passed.
+    private boolean warmStart(boolean bounded, long deadlineNanos) {
+        for (int u = 0; u < nodes; u++) net[u] = 0;
+        for (int d = 0; d < districts; d++) {
+            net[SUPER] += demand[d];
+            net[districtNode(d)] -= demand[d];
+        }
+        for (int e = supplyArc; e < arcs; e++) {
+            if (state[e] == STATE_TREE) continue;
+            if (state[e] == STATE_UPPER && flow[e] == 0 && cap[e] > 0) state[e] = STATE_LOWER; // Just opened: primal pivots fill it
+            long f = state[e] == STATE_UPPER ? cap[e] : 0;
+            flow[e] = f;
+            net[tail[e]] -= f;
+            net[head[e]] += f;
+        }
+        for (int u = revThread[root]; u != root; u = revThread[u]) {
+            long f = predDir[u] == UP ? net[u] : -net[u];
+            flow[pred[u]] = f;
+            net[parent[u]] += net[u];
+        }
+        while (true) {
+            if (bounded && pivots % DEADLINE_CHECK == 0 && System.nanoTime() - deadlineNanos > 0) return false;
+            // Leaving arc: the tree arc furthest outside its bounds
+            long worst = 0;
+            for (int u = thread[root]; u != root; u = thread[u]) {
+                long f = flow[pred[u]], violation = f < 0 ? -f : f - cap[pred[u]];
+                if (violation > worst) {
+                    worst = violation;
+                    uOut = u;
+                }
+            }
+            if (worst == 0) return true;
+            if (pivots == dualLimit || !dualPivot()) return false;
+            pivots++;
+        }
+    }
+
+    // The leaving arc goes to the bound it broke. The subtree below it must then send the difference across the cut
+    // through a non-tree arc, and the one with the smallest reduced cost keeps every listed arc priced correctly.
+    private boolean dualPivot() {
+        int outArc = pred[uOut];
+        long f = flow[outArc], bound = f < 0 ? 0 : cap[outArc];
+        long change = predDir[uOut] == UP ? f - bound : bound - f; // Extra flow the subtree must send out elsewhere
+        int stamp = ++cutStamp;
+        for (int i = 0, u = uOut; i < succNum[uOut]; i++, u = thread[u]) inCut[u] = stamp;
+
+        // Only arcs touching the smaller side can cross the cut
+        bestReduced = Long.MAX_VALUE;
+        inArc = -1;
+        boolean rising = change > 0;
+        if (2 * succNum[uOut] <= nodes) {
+            for (int i = 0, u = uOut; i < succNum[uOut]; i++, u = thread[u]) priceCut(u, stamp, rising);
+        } else {
+            for (int u = 0; u < nodes; u++) if (inCut[u] != stamp) priceCut(u, stamp, rising);
+        }
+        if (inArc < 0) return false;
+
+        boolean tailInCut = inCut[tail[inArc]] == stamp;
+        uIn = tailInCut ? tail[inArc] : head[inArc];
+        vIn = tailInCut ? head[inArc] : tail[inArc];
+        findJoinNode();
+        delta = Math.abs(change);
+        pushAroundCycle();
+        state[inArc] = STATE_TREE;
+        state[outArc] = bound == 0 ? STATE_LOWER : STATE_UPPER;
+        updateTreeStructure();
+        updatePotential();
+        return true;
+    }
+
+    private void priceCut(int u, int stamp, boolean rising) {
+        int[] list = incident[u];
+        for (int i = 0; i < degree[u]; i++) {
+            int e = list[i];
+            if (state[e] == STATE_TREE) continue;
+            boolean out = inCut[tail[e]] == stamp;
+            if (out == (inCut[head[e]] == stamp)) continue;
+            // Raising a LOWER arc or lowering an UPPER arc must move flow the way the subtree needs
+            if ((state[e] == STATE_LOWER) != (out == rising)) continue;
+            long c = state[e] * (cost[e] + potential[tail[e]] - potential[head[e]]);
+            if (c < bestReduced) {
+                bestReduced = c;
+                inArc = e;
+            }
+        }
+    }
+
+    private boolean findEnteringArc() {
+        while (true) {
+            if (searchCandidates()) return true;
+            if (!priceTransportArcs()) return false;
+        }
+    }
+
+    // Block search over the candidate list: scan a block, take the most negative reduced cost seen, resume there next time
+    private boolean searchCandidates() {
+        int block = Math.max(10, (int) Math.sqrt(candidateCount));
+        long min = 0;
+        int count = block;
+        for (int i = 0, j = nextArc; i < candidateCount; i++, j++) {
+            if (j == candidateCount) j = 0;
+            int e = candidates[j];
+            long c = state[e] * (cost[e] + potential[tail[e]] - potential[head[e]]);
+            if (c < min) {
+                min = c;
+                inArc = e;
+            }
+            if (--count == 0 || i == candidateCount - 1) {
+                if (min < 0) {
+                    nextArc = j + 1 == candidateCount ? 0 : j + 1;
+                    return true;
+                }
+                count = block;
+            }
+        }
+        return false;
+    }
+
+    // Full pricing: every transport arc not yet listed that prices out joins the candidates for this and later hours
+    private boolean priceTransportArcs() {
+        int before = candidateCount;
+        for (int e = 0; e < supplyArc; e++) {
+            if (!listed[e] && cost[e] + potential[tail[e]] - potential[head[e]] < 0) list(e);
+        }
+        return candidateCount > before;
+    }
+
+    private void findJoinNode() {
+        int u = tail[inArc], v = head[inArc];
+        while (u != v) {
+            if (succNum[u] < succNum[v]) u = parent[u];
+            else v = parent[v];
+        }
+        join = u;
+    }
+
+    // Ratio test around the cycle; ties go to the last blocking arc met from the second side, which keeps the tree
+    // strongly feasible. Returns false when the entering arc itself blocks (it just moves to its other bound).
+    private boolean findLeavingArc() {
+        int first, second;
+        if (state[inArc] == STATE_LOWER) {
+            first = tail[inArc];
+            second = head[inArc];
+        } else {
+            first = head[inArc];
+            second = tail[inArc];
+        }
+        delta = cap[inArc];
+        int result = 0;
+        for (int u = first; u != join; u = parent[u]) {
+            int e = pred[u];
+            long d = predDir[u] == DOWN ? residual(e) : flow[e];
+            if (d < delta) {
+                delta = d;
+                uOut = u;
+                result = 1;
+            }
+        }
+        for (int u = second; u != join; u = parent[u]) {
+            int e = pred[u];
+            long d = predDir[u] == UP ? residual(e) : flow[e];
+            if (d <= delta) {
+                delta = d;
+                uOut = u;
+                result = 2;
+            }
+        }
+        if (result == 1) {
+            uIn = first;
+            vIn = second;
+        } else {
+            uIn = second;
+            vIn = first;
+        }
+        return result != 0;
+    }
+
+    private long residual(int e) {
+        return cap[e] >= INF ? INF : cap[e] - flow[e];
+    }
+
+    private void changeFlow(boolean change) {
+        pushAroundCycle();
+        if (change) {
+            state[inArc] = STATE_TREE;
+            state[pred[uOut]] = flow[pred[uOut]] == 0 ? STATE_LOWER : STATE_UPPER;
+        } else {
+            state[inArc] = -state[inArc];
+        }
+    }
+
+    // Moves delta units along the entering arc's free direction and back to its tail through the tree
+    private void pushAroundCycle() {
+        if (delta == 0) return;
+        long val = state[inArc] * delta;
+        flow[inArc] += val;
+        for (int u = tail[inArc]; u != join; u = parent[u]) flow[pred[u]] -= predDir[u] * val;
+        for (int u = head[inArc]; u != join; u = parent[u]) flow[pred[u]] += predDir[u] * val;
+    }
+
+    // Re-hangs the subtree cut off at uOut below vIn through the entering arc, reversing the stem from uIn to uOut
+    private void updateTreeStructure() {
+        int oldRevThread = revThread[uOut];
+        int oldSuccNum = succNum[uOut];
+        int oldLastSucc = lastSucc[uOut];
+        int vOut = parent[uOut];
+
+        if (uIn == uOut) {
+            parent[uIn] = vIn;
+            pred[uIn] = inArc;
+            predDir[uIn] = uIn == tail[inArc] ? UP : DOWN;
+            if (thread[vIn] != uOut) {
+                int after = thread[oldLastSucc];
+                thread[oldRevThread] = after;
+                revThread[after] = oldRevThread;
+                after = thread[vIn];
+                thread[vIn] = uOut;
+                revThread[uOut] = vIn;
+                thread[oldLastSucc] = after;
+                revThread[after] = oldLastSucc;
+            }
+        } else {
+            int threadContinue = oldRevThread == vIn ? thread[oldLastSucc] : thread[vIn];
+
+            // Move each stem node's subtree (minus the next stem) behind its new parent in the thread
+            int stem = uIn, parStem = vIn, last = lastSucc[uIn], after = thread[last];
+            thread[vIn] = uIn;
+            int dirty = 0;
+            dirtyRevs[dirty++] = vIn;
+            while (stem != uOut) {
+                int nextStem = parent[stem];
+                thread[last] = nextStem;
+                dirtyRevs[dirty++] = last;
+                int before = revThread[stem];
+                thread[before] = after;
+                revThread[after] = before;
+                parent[stem] = parStem;
+                parStem = stem;
+                stem = nextStem;
+                last = lastSucc[stem] == lastSucc[parStem] ? revThread[parStem] : lastSucc[stem];
+                after = thread[last];
+            }
+            parent[uOut] = parStem;
+            thread[last] = threadContinue;
+            revThread[threadContinue] = last;
+            lastSucc[uOut] = last;
+            if (oldRevThread != vIn) {
+                thread[oldRevThread] = after;
+                revThread[after] = oldRevThread;
+            }
+            for (int i = 0; i < dirty; i++) revThread[thread[dirtyRevs[i]]] = dirtyRevs[i];
+
+            // Reverse pred, direction, subtree sizes and last successors along the stem
+            int sizes = 0, tmpLast = lastSucc[uOut];
+            for (int u = uOut, p = parent[u]; u != uIn; u = p, p = parent[u]) {
+                pred[u] = pred[p];
+                predDir[u] = -predDir[p];
+                sizes += succNum[u] - succNum[p];
+                succNum[u] = sizes;
+                lastSucc[p] = tmpLast;
+            }
+            pred[uIn] = inArc;
+            predDir[uIn] = uIn == tail[inArc] ? UP : DOWN;
+            succNum[uIn] = oldSuccNum;
+        }
+
+        // Last successors and subtree sizes above the two ends of the cycle
+        int upLimitOut = lastSucc[join] == vIn ? join : -1;
+        int lastSuccOut = lastSucc[uOut];
+        for (int u = vIn; u != -1 && lastSucc[u] == vIn; u = parent[u]) lastSucc[u] = lastSuccOut;
+        if (join != oldRevThread && vIn != oldRevThread) {
+            for (int u = vOut; u != upLimitOut && lastSucc[u] == oldLastSucc; u = parent[u]) lastSucc[u] = oldRevThread;
+        } else if (lastSuccOut != oldLastSucc) {
+            for (int u = vOut; u != upLimitOut && lastSucc[u] == oldLastSucc; u = parent[u]) lastSucc[u] = lastSuccOut;
+        }
+        for (int u = vIn; u != join; u = parent[u]) succNum[u] += oldSuccNum;
+        for (int u = vOut; u != join; u = parent[u]) succNum[u] -= oldSuccNum;
+    }
+
+    // The moved subtree's potentials shift so the entering arc has zero reduced cost
+    private void updatePotential() {
+        long sigma = potential[vIn] - potential[uIn] - predDir[uIn] * cost[inArc];
+        int end = thread[lastSucc[uIn]];
+        for (int u = uIn; u != end; u = thread[u]) potential[u] += sigma;
+    }
+
+    // Step 5: After a deadline the flow is feasible but not optimal. Spare source capacity still replaces shortage kWh
+    // (any source is cheaper than the cheapest tier), walking the hour's sources cheapest first as GridDispatcher does.
+    private void topUp(int hour) {
+        int[] available = grid.byHour[Math.floorMod(hour, GridDispatcher.HOURS_PER_DAY)];
+        int pointer = 0;
+        for (int d = 0; d < districts && pointer < available.length; d++) {
+            long shortfall = demand[d];
+            for (int s = 0; s < sources; s++) shortfall -= flow[s * districts + d];
+            while (shortfall > 0 && pointer < available.length) {
+                int s = available[pointer];
+                long add = Math.min(shortfall, supplyCap[s] - flow[supplyArc + s]);
+                flow[s * districts + d] += add;
+                flow[supplyArc + s] += add;
+                shortfall -= add;
+                if (flow[supplyArc + s] == supplyCap[s]) pointer++;
+            }
+        }
+        warm = false; // The topped-up flow no longer matches the basis
+    }
+
+    // Shortage is priced by the tiers it fills, cheapest first, which is also how the optimal flow uses them
+    private void fill(GridDispatcher.Allocation out) {
+        out.districts = districts;
+        out.totalCost = 0;
+        out.renewableEnergy = 0;
+        out.totalEnergy = 0;
+        objective = 0;
+        int entries = 0;
+        for (int d = 0; d < districts; d++) {
+            out.entryStart[d] = entries;
+            int received = 0;
+            double districtCost = 0;
+            for (int s = 0; s < sources; s++) {
+                int f = (int) flow[s * districts + d];
+                if (f == 0) continue;
+                out.ensureEntries(entries + 1);
+                out.entrySource[entries] = s;
+                out.entryAmount[entries] = f;
+                entries++;
+                received += f;
+                long paisa = f * cost[s * districts + d];
+                objective += paisa;
+                districtCost += paisa / 100.0;
+                if (grid.renewable[s]) out.renewableEnergy += f;
+            }
+            long unmet = demand[d] - received;
+            for (int k = 0; k < TIERS && unmet > 0; k++) {
+                long tier = Math.min(unmet, cap[tierArc + d * TIERS + k]);
+                objective += tier * tierCost[k];
+                unmet -= tier;
+            }
+            out.demand[d] = demand[d];
+            out.fulfilled[d] = received;
+            out.cost[d] = districtCost;
+            out.totalCost += districtCost;
+            out.totalEnergy += received;
+        }
+        out.entryStart[districts] = entries;
+    }
+
+    // Optimality certificate, independent of the tree: the flow conserves every node and respects every capacity,
+    // artificial arcs are empty, and no arc that could still move has a negative reduced cost
+    boolean isOptimal() {
+        long[] balance = new long[nodes];
+        for (int d = 0; d < districts; d++) {
+            balance[SUPER] += demand[d];
+            balance[districtNode(d)] -= demand[d];
+        }
+        for (int e = 0; e < arcs; e++) {
+            long f = flow[e], rc = cost[e] + potential[tail[e]] - potential[head[e]];
+            if (f < 0 || f > cap[e]) return false;
+            if ((f < cap[e] && rc < 0) || (f > 0 && rc > 0)) return false;
+            balance[tail[e]] -= f;
+            balance[head[e]] += f;
+        }
+        for (int u = 0; u < nodes; u++) if (balance[u] != 0 || flow[arcs + u] != 0) return false;
+        return true;
+    }
+
+    private static List<SmartGridOptimizer.Source> randomSources(Random rng, int count, int maxCap) {
+        String[] types = {"Solar", "Hydro", "Diesel"};
+        List<SmartGridOptimizer.Source> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = rng.nextInt(24);
+            sources.add(new SmartGridOptimizer.Source("S" + (i + 1), types[rng.nextInt(3)], 1 + rng.nextInt(maxCap),
+                start, start + rng.nextInt(24 - start), 1.0 + rng.nextInt(5) * 0.5));
+        }
+        return sources;
+    }
+
+    private static double[][] randomDelivery(Random rng, int sources, int districts) {
+        double[][] delivery = new double[sources][districts];
+        for (double[] row : delivery) for (int d = 0; d < districts; d++) row[d] = rng.nextInt(200) / 100.0;
+        return delivery;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: The assignment sample, then a 05:00 shortage (no solar, only S2 = 40 kWh for 60 kWh of demand)
+        List<SmartGridOptimizer.Source> sample = Arrays.asList(
+            new SmartGridOptimizer.Source("S1", "Solar", 50, 6, 18, 1.0),
+            new SmartGridOptimizer.Source("S2", "Hydro", 40, 0, 23, 1.5),
+            new SmartGridOptimizer.Source("S3", "Diesel", 60, 17, 23, 3.0)
+        );
+        GridDispatcher greedy = new GridDispatcher(sample);
+        MinCostDispatcher optimal = new MinCostDispatcher(greedy, 3, null);
+        GridDispatcher.Allocation g = new GridDispatcher.Allocation(3, 3), o = new GridDispatcher.Allocation(3, 3);
+        StringBuilder line = new StringBuilder();
+        for (int[] row : new int[][]{{6, 20, 15, 25}, {17, 25, 20, 30}, {5, 20, 15, 25}}) {
+            int[] demand = {row[1], row[2], row[3]};
+            greedy.dispatch(row[0], demand, g);
+            optimal.dispatch(row[0], demand, o);
+            line.append(String.format("%02d: Rs. %.2f vs %.2f [", row[0], g.totalCost(), o.totalCost()));
+            for (int d = 0; d < 3; d++) {
+                line.append(String.format("%.0f%%/%.0f%%", g.percentFulfilled(d), o.percentFulfilled(d))).append(d < 2 ? " " : "]  ");
+            }
+        }
+        System.out.println("Test Case 1 Output (greedy vs optimal): " + line.toString().trim());
+
+        // TEST CASE 2: Warm-started hour sequences with delivery costs are certified optimal and match a cold solve
+        Random rng = new Random(17);
+        boolean matches = true;
+        for (int t = 0; t < 40; t++) {
+            int s = 1 + rng.nextInt(25), d = 1 + rng.nextInt(8);
+            List<SmartGridOptimizer.Source> sources = randomSources(rng, s, 60);
+            GridDispatcher grid = new GridDispatcher(sources);
+            double[][] delivery = rng.nextBoolean() ? null : randomDelivery(rng, s, d);
+            MinCostDispatcher warmEngine = new MinCostDispatcher(grid, d, delivery);
+            MinCostDispatcher coldEngine = new MinCostDispatcher(grid, d, delivery);
+            GridDispatcher.Allocation a = new GridDispatcher.Allocation(d, s), b = new GridDispatcher.Allocation(d, s);
+            for (int hour = 0; hour < 24; hour++) {
+                int[] demand = rng.ints(d, 0, 120).toArray();
+                warmEngine.dispatch(hour, demand, a);
+                coldEngine.reset();
+                coldEngine.dispatch(hour, demand, b);
+                matches &= warmEngine.isOptimal() && warmEngine.lastObjective() == coldEngine.lastObjective();
+                if (delivery == null) {
+                    // Same source costs for every district: the greedy total is already cheapest, and both serve the same kWh
+                    grid.dispatch(hour, demand, b);
+                    matches &= Math.abs(a.totalCost() - b.totalCost()) < 1e-6 && a.totalEnergy() == b.totalEnergy();
+                }
+            }
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: 1,000 sources (70% round-the-clock, 30% solar 06-18) x 200 districts, 48 consecutive hours
+        int s = 1000, d = 200;
+        List<SmartGridOptimizer.Source> sources = new ArrayList<>();
+        for (int i = 0; i < s; i++) {
+            boolean solar = rng.nextInt(10) < 3;
+            String type = solar ? "Solar" : rng.nextBoolean() ? "Hydro" : "Diesel";
+            sources.add(new SmartGridOptimizer.Source("S" + (i + 1), type, 50 + rng.nextInt(200), solar ? 6 : 0,
+                solar ? 18 : 23, solar ? 1.0 : type.equals("Hydro") ? 1.5 + rng.nextInt(3) * 0.5 : 3.0 + rng.nextInt(3) * 0.5));
+        }
+        GridDispatcher grid = new GridDispatcher(sources);
+        double[][] delivery = randomDelivery(rng, s, d);
+        MinCostDispatcher engine = new MinCostDispatcher(grid, d, delivery);
+        MinCostDispatcher unbounded = new MinCostDispatcher(grid, d, delivery); // Cold optimum of every hour
+        GridDispatcher.Allocation out = new GridDispatcher.Allocation(d, s), best = new GridDispatcher.Allocation(d, s);
+        int[] demand = rng.ints(d, 200, 800).toArray();
+        long budgetMs = 250, worstMs = 0, totalMs = 0, coldMs = 0;
+        int hits = 0, warmHours = 0;
+        boolean certified = true;
+        for (int hour = 0; hour < 48; hour++) {
+            if (hour > 0) for (int i = 0; i < d; i++) demand[i] = Math.max(0, demand[i] + rng.nextInt(81) - 40);
+            long start = System.nanoTime();
+            engine.dispatch(hour, demand, out, start + budgetMs * 1_000_000);
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            if (hour == 0) coldMs = ms;
+            worstMs = Math.max(worstMs, ms);
+            totalMs += ms;
+            if (!engine.lastOptimal()) hits++;
+            if (engine.lastWarm()) warmHours++;
+            unbounded.reset();
+            unbounded.dispatch(hour, demand, best);
+            certified &= engine.isOptimal() && engine.lastObjective() == unbounded.lastObjective();
+        }
+        System.out.println("Test Case 3 Output: " + budgetMs + " ms deadline per hour: cold hour " + coldMs + " ms, avg "
+            + totalMs / 48 + " ms, worst " + worstMs + " ms | deadline hits " + hits + ", " + warmHours
+            + " hours warm-started | every hour certified optimal and equal to a cold solve: " + certified
+            + " -> " + (hits == 0 && certified));
+
+        // TEST CASE 4: Hours cut off by an expired deadline are feasible, serve as much as greedy and cost no less than
+        // the optimum; unbounded hours after them still match a cold solve
+        boolean recovers = true;
+        int cut = 0;
+        for (int t = 0; t < 40; t++) {
+            int sc = 1 + rng.nextInt(25), dc = 1 + rng.nextInt(8);
+            GridDispatcher small = new GridDispatcher(randomSources(rng, sc, 60));
+            double[][] costs = rng.nextBoolean() ? null : randomDelivery(rng, sc, dc);
+            MinCostDispatcher interrupted = new MinCostDispatcher(small, dc, costs);
+            MinCostDispatcher cold = new MinCostDispatcher(small, dc, costs);
+            GridDispatcher.Allocation a = new GridDispatcher.Allocation(dc, sc), b = new GridDispatcher.Allocation(dc, sc);
+            for (int hour = 0; hour < 24; hour++) {
+                int[] need = rng.ints(dc, 0, 120).toArray();
+                boolean expired = rng.nextInt(3) == 0;
+                if (expired) interrupted.dispatch(hour, need, a, System.nanoTime()); // No pivots at all
+                else interrupted.dispatch(hour, need, a);
+                cold.reset();
+                cold.dispatch(hour, need, b);
+                if (interrupted.lastOptimal()) {
+                    recovers &= interrupted.isOptimal() && interrupted.lastObjective() == cold.lastObjective();
+                    continue;
+                }
+                cut++;
+                int[] used = new int[sc];
+                for (int e = 0; e < a.entryStart[dc]; e++) used[a.entrySource[e]] += a.entryAmount[e];
+                for (int i = 0; i < sc; i++) recovers &= used[i] <= interrupted.supplyCap[i];
+                for (int i = 0; i < dc; i++) recovers &= a.fulfilled(i) <= need[i];
+                recovers &= interrupted.lastObjective() >= cold.lastObjective();
+                small.dispatch(hour, need, b);
+                recovers &= a.totalEnergy() == b.totalEnergy();
+            }
+        }
+        System.out.println("Test Case 4 Output: " + recovers + " (" + cut + " hours cut off)");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output (greedy vs optimal): 06: Rs. 65.00 vs 65.00 [100%/100% 100%/100% 100%/100%]  17: Rs. 87.50 vs 87.50 [100%/100% 100%/100% 100%/100%]  05: Rs. 60.00 vs 60.00 [100%/65% 100%/67% 20%/68%]
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 250 ms deadline per hour: cold hour 91 ms, avg 16 ms, worst 91 ms | deadline hits 0, 45 hours warm-started | every hour certified optimal and equal to a cold solve: true -> true
+ * (The cold hours are 0, 19 and 43: the first hour, then the two 19:00 ramps where 300 solar sources close and the
+ * repair needs more dual pivots than the warm-start limit. The 06:00 ramps stay warm because opening sources start empty.)
+ * Test Case 4 Output: true (335 hours cut off)
+ * -----------------------------------------------------------
+ */
@@ -64,46 +64,24 @@ public class SmartGridOptimizer {
         System.out.println("Hour | District | Demand | Fulfilled | Source Used | Cost (Rs.)");
         System.out.println("------------------------------------------------------------------");
 
+        // Tasks 2-4 run in GridDispatcher: sources are indexed by hour and sorted by cost once
+        GridDispatcher dispatcher = new GridDispatcher(sources);
+        GridDispatcher.Allocation allocation = new GridDispatcher.Allocation(3, dispatcher.sourceCount());
+        String[] distNames = {"A", "B", "C"};
+
         for (int[] row : demands) {
             int hour = row[0];
             int[] distDemands = {row[1], row[2], row[3]};
-            String[] distNames = {"A", "B", "C"};
-
-            // Reset hourly capacities
-            for (Source s : sources) s.currentCapacity = s.maxCap;
-
-            // Task 3: Greedy Prioritization (Sort by cost)
-            List<Source> available = new ArrayList<>();
-            for (Source s : sources) if (s.isAvailable(hour)) available.add(s);
-            available.sort(Comparator.comparingDouble(s -> s.cost));
+            dispatcher.dispatch(hour, distDemands, allocation);
+            totalCost += allocation.totalCost();
+            totalRenewable += allocation.renewableEnergy();
+            totalEnergyUsed += allocation.totalEnergy();
 
             for (int i = 0; i < 3; i++) {
-                int demand = distDemands[i];
-                int remaining = demand;
-                StringBuilder sourcesUsed = new StringBuilder();
-                double hourlyDistCost = 0;
-
-                for (Source s : available) {
-                    if (remaining <= 0) break;
-                    int allocated = Math.min(remaining, s.currentCapacity);
-                    if (allocated > 0) {
-                        s.currentCapacity -= allocated;
-                        remaining -= allocated;
-                        double cost = allocated * s.cost;
-                        hourlyDistCost += cost;
-                        totalCost += cost;
-                        totalEnergyUsed += allocated;
-                        if (!s.type.equals("Diesel")) totalRenewable += allocated;
-                        sourcesUsed.append(s.id).append("(").append(allocated).append("kwh) ");
-                    }
-                }
-
-                // Task 4: Handle ±10% Flexibility
-                double percentFulfilled = ((double) (demand - remaining) / demand) * 100;
-                
                 // Task 5: Output Table
-                System.out.printf("%02d   |    %s     |  %d    |   %.1f%%   | %s | %.2f\n", 
-                    hour, distNames[i], demand, percentFulfilled, sourcesUsed, hourlyDistCost);
+                System.out.printf("%02d   |    %s     |  %d    |   %.1f%%   | %s | %.2f\n",
+                    hour, distNames[i], distDemands[i], allocation.percentFulfilled(i), dispatcher.describe(allocation, i),
+                    allocation.cost(i));
             }
         }
 
@@ -0,0 +1,631 @@
+package Q5A;
+
+// Algorithm Description (Algorithm Design)
+// runOptimization picks spots greedily by fee and ignores the time limit entirely. It also runs on the Swing EDT.
+// ItinerarySolver treats the trip as an orienteering problem: choose and order spots to maximise interest value
+// without exceeding the budget (entry fees) or the time limit (travel + visits).
+
+// Step 1: Model: Travel time is the haversine distance at CITY_SPEED_KMH, and every visit takes VISIT_HOURS.
+// The route starts at a given point (the hotel) and does not need to return. A spot is worth 1 + its number of
+// matching interest tags, so matching spots count more but any spot is better than none.
+// Step 2: Incumbent: A greedy route (best value per added hour) gives an answer immediately.
+// Step 3: Branch-and-Bound: Depth-first search over routes. Visited spots are a long[] bitset, set and cleared in place.
+// Children are tried in order of value per added hour, so good routes are found early.
+// A node is pruned when value + bound <= best. The bound is the smallest of three bounds over the unvisited spots that
+// still fit. One is a fractional knapsack on time (each spot weighted by its cheapest way in + VISIT_HOURS). Another
+// counts how many more visits the time allows (k) and relaxes the fee limit with a multiplier u: for any u >= 0,
+// u * feesLeft + the k largest (value - u * fee) bounds the route, and the smallest over u is found by golden-section
+// search because this function of u is convex. The third is the value-class bound of Step 3c.
+// Step 3b: Dominance: Two partial routes over the same set of spots that end at the same spot have the same value, so
+// the one that is no faster and no cheaper cannot lead anywhere better. A direct-mapped table keyed by a Zobrist hash
+// of (visited set, last spot) keeps the time and fee of the last label seen, and a dominated node is cut.
+// Step 3c: Value Classes: A route's value is the sum over t of how many of its spots are worth at least t. When at most
+// CLASS_LIMIT candidates are worth t or more, a Held-Karp pass over their subsets gives the least hours needed to visit c
+// of them within the budget, and so the most of them (cap) any route can hold. With k visits left, class t adds at most
+// min(k, cap - class spots already on the route) to the bound. At the root the c-spot times also limit how many other
+// visits fit, which is what proves a route of rare, scattered high-value spots optimal; the knapsack bounds cannot see
+// geography at all.
+// Step 4: Anytime: Every better route is handed to the caller at once (progressive UI updates). The search stops at the
+// caller's wall-clock deadline or when its thread is interrupted, and returns the best route found. If the tree was
+// exhausted first, the result is marked optimal. Otherwise the result carries the largest bound over the subtrees that
+// were never explored, so the caller sees how far from optimal it can be.
+// Step 5: Candidates: SpotCatalog returns only the spots within reach of the start ((hours - VISIT_HOURS) at city speed).
+// Interest matches are bitmask ANDs. If more than MAX_CANDIDATES remain, the best by value per hour from the start are
+// kept, and the result is no longer claimed optimal. Its bound is then the visits that fit times the largest value of
+// any reachable spot, since routes through the dropped spots were never searched.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Question 5A: Tourist Spot Optimizer (Exact Anytime Solver)
+ * Budget- and time-constrained orienteering by branch-and-bound with bitset states.
+ */
+public class ItinerarySolver {
+    static final double CITY_SPEED_KMH = 20.0;
+    static final double VISIT_HOURS = 1.0;
+    static final int MAX_CANDIDATES = 800; // Bounds the (m + 1)^2 travel matrix
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double EPS = 1e-9;
+    private static final int DOMINANCE_SLOTS = 1 << 18;
+    private static final int MULTIPLIER_STEPS = 12;
+    private static final double GOLDEN = (Math.sqrt(5) - 1) / 2;
+    private static final int CLASS_LIMIT = 16; // Largest value class whose routes are enumerated by subset
+
+    /** An ordered route with its totals; optimal is true only when the search tree was exhausted. */
+    public static final class Itinerary {
+        final List<TouristSpot> route;
+        final int totalFee;
+        final double hours;
+        final int value;
+        final boolean optimal;
+        final int bound;         // No route is worth more; equals value when optimal
+        final long nodes;
+        final int[] spotIndices; // Catalog indices of route, in order
+
+        Itinerary(List<TouristSpot> route, int totalFee, double hours, int value, boolean optimal, int bound, long nodes,
+                  int[] spotIndices) {
+            this.route = route; this.totalFee = totalFee; this.hours = hours; this.value = value;
+            this.optimal = optimal; this.bound = bound; this.nodes = nodes; this.spotIndices = spotIndices;
+        }
+
+        public List<TouristSpot> getRoute() { return route; }
+
+        public int getTotalFee() { return totalFee; }
+
+        public double getHours() { return hours; }
+
+        public int getValue() { return value; }
+
+        public boolean isOptimal() { return optimal; }
+
+        public int getBound() { return bound; }
+
+        /** Bound - value, as a fraction of the bound. */
+        public double gap() { return bound == 0 ? 0 : (double) (bound - value) / bound; }
+
+        @Override
+        public String toString() {
+            StringBuilder names = new StringBuilder();
+            for (TouristSpot s : route) names.append(names.length() == 0 ? "" : " -> ").append(s.name);
+            return String.format("[%s] value %d, Rs. %d, %.2f h%s", names, value, totalFee, hours, optimal ? " (optimal)" : "");
+        }
+    }
+
+    private final SpotCatalog catalog;
+    private final double startLat, startLon;
+
+    // Per-solve state over the m candidate spots; index m is the start point
+    private int m;
+    private int[] candidate, value, fee;
+    private double[] travel;      // hours, [(m + 1) * from + to]
+    private double[] minIn;       // cheapest travel into each candidate
+    private int[] byTimeRatio;
+    private long[] visited;
+    private long[][] childKeys;
+    private int[] path, bestPath;
+    private int bestLength, bestValue, bestFee;
+    private double bestHours, maxHours, minStep;
+    private int[] boundValue, boundFee; // Scratch for the multiplier bound
+    private double[] topK;
+    private long[] zobrist, lastKey;
+    private long visitedHash;
+    private final long[] dominanceKey = new long[DOMINANCE_SLOTS];
+    private final double[] dominanceHours = new double[DOMINANCE_SLOTS];
+    private final int[] dominanceFee = new int[DOMINANCE_SLOTS];
+    private int[] classCap, classVisited; // [t]: most / visited spots worth >= t on a route
+    private double rootBound, openBound; // Bound before the search; largest bound over subtrees an abort left unexplored
+    private int reachBound;              // Visits that fit x largest value over every reachable spot, kept or not
+    private long nodes, deadline;
+    private boolean aborted, truncated;
+    private Consumer<Itinerary> listener;
+
+    public ItinerarySolver(List<TouristSpot> spots, double startLat, double startLon) {
+        this(new SpotCatalog(spots), startLat, startLon);
+    }
+
+    public ItinerarySolver(SpotCatalog catalog, double startLat, double startLon) {
+        this.catalog = catalog;
+        this.startLat = startLat;
+        this.startLon = startLon;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1), dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    // Reference scoring over the tag strings; a tag listed twice counts once, as in SpotCatalog's bitmask
+    static int interestValue(TouristSpot s, Collection<String> interests) {
+        return 1 + (int) s.tags.stream().distinct().filter(interests::contains).count();
+    }
+
+    /**
+     * Best route found before deadlineNanos (System.nanoTime()); each improvement is passed to onImprovement
+     * on the calling thread as soon as it is found.
+     */
+    public Itinerary solve(int budget, double hours, Collection<String> interests, long deadlineNanos,
+                           Consumer<Itinerary> onImprovement) {
+        prepare(budget, hours, interests);
+        this.deadline = deadlineNanos;
+        this.listener = onImprovement;
+        nodes = 0;
+        aborted = false;
+        openBound = 0;
+
+        // Step 2: Greedy incumbent
+        greedySeed(budget);
+        if (bestLength > 0 && listener != null) listener.accept(snapshot(false));
+
+        // Step 3: Branch-and-bound from the start point
+        rootBound = Math.min(classCaps(budget), upperBound(hours, budget));
+        if (rootBound <= bestValue) return snapshot(!truncated); // The greedy route already meets the bound
+        search(m, 0, 0.0, 0, 0, budget);
+        return snapshot(!aborted && !truncated);
+    }
+
+    private void prepare(int budget, double hours, Collection<String> interests) {
+        maxHours = hours;
+        long[] mask = catalog.interestMask(interests);
+        int[] reachable = catalog.withinRadius(startLat, startLon, Math.max(0, hours - VISIT_HOURS) * CITY_SPEED_KMH + EPS);
+        double[] fromStart = new double[reachable.length];
+        long[] keyed = new long[reachable.length];
+        m = 0;
+        int maxValue = 0;
+        for (int j = 0; j < reachable.length; j++) {
+            int i = reachable[j];
+            fromStart[j] = haversineKm(startLat, startLon, catalog.lat(i), catalog.lon(i)) / CITY_SPEED_KMH;
+            if (catalog.spot(i).fee > budget || fromStart[j] + VISIT_HOURS > hours + EPS) continue;
+            maxValue = Math.max(maxValue, 1 + catalog.matches(i, mask));
+            double ratio = (1 + catalog.matches(i, mask)) / (fromStart[j] + VISIT_HOURS);
+            keyed[m++] = ((long) Float.floatToIntBits((float) ratio) << 32) | j;
+        }
+        truncated = m > MAX_CANDIDATES;
+        reachBound = (int) Math.floor(hours / VISIT_HOURS + EPS) * maxValue;
+        if (truncated) {
+            Arrays.sort(keyed, 0, m);
+            System.arraycopy(keyed, m - MAX_CANDIDATES, keyed, 0, MAX_CANDIDATES);
+            m = MAX_CANDIDATES;
+        }
+        candidate = new int[m];
+        double[] startHours = new double[m];
+        for (int a = 0; a < m; a++) {
+            int j = (int) keyed[a];
+            candidate[a] = reachable[j];
+            startHours[a] = fromStart[j];
+        }
+        value = new int[m];
+        fee = new int[m];
+        travel = new double[(m + 1) * (m + 1)];
+        minIn = new double[m];
+        Arrays.fill(minIn, Double.MAX_VALUE);
+        for (int a = 0; a < m; a++) {
+            int i = candidate[a];
+            value[a] = 1 + catalog.matches(i, mask);
+            fee[a] = catalog.spot(i).fee;
+            travel[m * (m + 1) + a] = startHours[a];
+            minIn[a] = Math.min(minIn[a], startHours[a]);
+            for (int b = a + 1; b < m; b++) {
+                int k = candidate[b];
+                double h = catalog.distanceKm(i, k) / CITY_SPEED_KMH;
+                travel[a * (m + 1) + b] = h;
+                travel[b * (m + 1) + a] = h;
+                minIn[a] = Math.min(minIn[a], h);
+                minIn[b] = Math.min(minIn[b], h);
+            }
+        }
+        byTimeRatio = sortedBy(a -> value[a] / (minIn[a] + VISIT_HOURS));
+        minStep = VISIT_HOURS;
+        if (m > 0) {
+            double closest = Double.MAX_VALUE;
+            for (int a = 0; a < m; a++) closest = Math.min(closest, minIn[a]);
+            minStep += closest;
+        }
+        boundValue = new int[m];
+        boundFee = new int[m];
+        topK = new double[(int) (hours / minStep) + 2];
+
+        // Step 3b: Zobrist keys, fixed per solve so labels never match across solves
+        Random keys = new Random(m * 31L + budget);
+        zobrist = new long[m];
+        lastKey = new long[m + 1];
+        for (int a = 0; a < m; a++) zobrist[a] = keys.nextLong();
+        for (int a = 0; a <= m; a++) lastKey[a] = keys.nextLong();
+        visitedHash = 0;
+        Arrays.fill(dominanceKey, 0);
+
+        visited = new long[(m + 64) / 64];
+        childKeys = new long[m + 1][];
+        path = new int[m];
+        bestPath = new int[m];
+        bestLength = 0;
+        bestValue = 0;
+        bestFee = 0;
+        bestHours = 0;
+    }
+
+    private int[] sortedBy(IntToDoubleFunction ratio) {
+        Integer[] order = new Integer[m];
+        for (int a = 0; a < m; a++) order[a] = a;
+        Arrays.sort(order, (x, y) -> Double.compare(ratio.applyAsDouble(y), ratio.applyAsDouble(x)));
+        int[] result = new int[m];
+        for (int a = 0; a < m; a++) result[a] = order[a];
+        return result;
+    }
+
+    private boolean isVisited(int a) { return (visited[a >>> 6] & (1L << a)) != 0; }
+
+    private void greedySeed(int budget) {
+        int last = m, length = 0, totalValue = 0, totalFee = 0;
+        double used = 0;
+        while (true) {
+            int pick = -1;
+            double bestRatio = -1;
+            for (int a = 0; a < m; a++) {
+                if (isVisited(a) || totalFee + fee[a] > budget) continue;
+                double added = travel[last * (m + 1) + a] + VISIT_HOURS;
+                if (used + added > maxHours + EPS) continue;
+                double ratio = value[a] / added;
+                if (ratio > bestRatio) { bestRatio = ratio; pick = a; }
+            }
+            if (pick < 0) break;
+            used += travel[last * (m + 1) + pick] + VISIT_HOURS;
+            totalValue += value[pick];
+            totalFee += fee[pick];
+            visited[pick >>> 6] |= 1L << pick;
+            path[length++] = pick;
+            last = pick;
+        }
+        Arrays.fill(visited, 0);
+        record(length, totalValue, totalFee, used);
+    }
+
+    private void record(int length, int totalValue, int totalFee, double used) {
+        System.arraycopy(path, 0, bestPath, 0, length);
+        bestLength = length;
+        bestValue = totalValue;
+        bestFee = totalFee;
+        bestHours = used;
+    }
+
+    private void search(int last, int depth, double used, int totalValue, int totalFee, int budget) {
+        if ((++nodes & 1023) == 0 && (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        if (aborted) {
+            openBound = Math.max(openBound, totalValue + upperBound(maxHours - used, budget - totalFee));
+            return;
+        }
+        if (totalValue > bestValue) {
+            record(depth, totalValue, totalFee, used);
+            if (listener != null) listener.accept(snapshot(false));
+        }
+        if (depth > 0 && dominated(last, used, totalFee)) return;
+        if (totalValue + upperBound(maxHours - used, budget - totalFee) <= bestValue) return;
+
+        // Children in order of value per added hour, best first
+        long[] keys = childKeys[depth];
+        if (keys == null) keys = childKeys[depth] = new long[m];
+        int count = 0;
+        for (int a = 0; a < m; a++) {
+            if (isVisited(a) || totalFee + fee[a] > budget) continue;
+            double added = travel[last * (m + 1) + a] + VISIT_HOURS;
+            if (used + added > maxHours + EPS) continue;
+            // Positive float bits sort like the floats themselves
+            keys[count++] = ((long) Float.floatToIntBits((float) (value[a] / added)) << 32) | a;
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = count - 1; i >= 0; i--) {
+            int a = (int) keys[i];
+            double next = used + travel[last * (m + 1) + a] + VISIT_HOURS;
+            visited[a >>> 6] |= 1L << a;
+            visitedHash ^= zobrist[a];
+            for (int t = 1; t <= value[a]; t++) classVisited[t]++;
+            path[depth] = a;
+            if (aborted) {
+                // Step 4: A sibling that will never be searched still counts toward the reported bound
+                openBound = Math.max(openBound, totalValue + value[a] + upperBound(maxHours - next, budget - totalFee - fee[a]));
+            } else {
+                search(a, depth + 1, next, totalValue + value[a], totalFee + fee[a], budget);
+            }
+            visited[a >>> 6] &= ~(1L << a);
+            visitedHash ^= zobrist[a];
+            for (int t = 1; t <= value[a]; t++) classVisited[t]--;
+        }
+    }
+
+    // Step 3c: classCap[t] and the root bound for every value class small enough to search; larger classes stay uncapped
+    private double classCaps(int budget) {
+        int top = 0;
+        for (int a = 0; a < m; a++) top = Math.max(top, value[a]);
+        classCap = new int[top + 1];
+        classVisited = new int[top + 1];
+        Arrays.fill(classCap, Integer.MAX_VALUE);
+        double[][] minHours = new double[top + 1][];
+        int[] members = new int[CLASS_LIMIT];
+        for (int t = top; t >= 2; t--) {
+            int count = 0;
+            for (int a = 0; a < m && count <= CLASS_LIMIT; a++) {
+                if (value[a] >= t) {
+                    if (count < CLASS_LIMIT) members[count] = a;
+                    count++;
+                }
+            }
+            if (count > CLASS_LIMIT) break; // Lower classes are larger still
+            minHours[t] = shortestCover(members, count, budget);
+            int cap = 0;
+            while (cap < count && minHours[t][cap + 1] <= maxHours + EPS) cap++;
+            classCap[t] = cap;
+        }
+
+        // c spots of class t take at least minHours[t][c]; every other visit adds at least VISIT_HOURS (triangle
+        // inequality), which limits the total visits k, and each class t' then adds min(k, cap, c if t' >= t)
+        int visits = (int) ((maxHours + EPS) / minStep);
+        double bound = classBound(maxHours);
+        for (int t = 2; t <= top; t++) {
+            if (minHours[t] == null) continue;
+            int best = 0;
+            for (int c = 0; c <= classCap[t]; c++) {
+                int k = Math.min(visits, c + (int) ((maxHours - minHours[t][c] + EPS) / VISIT_HOURS));
+                int total = 0;
+                for (int u = 1; u <= top; u++) total += Math.min(Math.min(k, classCap[u]), u >= t ? c : Integer.MAX_VALUE);
+                best = Math.max(best, total);
+            }
+            bound = Math.min(bound, best);
+        }
+        return bound;
+    }
+
+    // Held-Karp over subsets of the members: result[c] = least hours (travel + visits) of a route from the start that
+    // visits c of them within the budget, or infinity
+    private double[] shortestCover(int[] members, int count, int budget) {
+        double[] result = new double[count + 1];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        result[0] = 0;
+        int subsets = 1 << count;
+        double[] hours = new double[subsets * count]; // [subset * count + last]
+        Arrays.fill(hours, Double.POSITIVE_INFINITY);
+        int[] subsetFee = new int[subsets];
+        for (int i = 0; i < count; i++) hours[(1 << i) * count + i] = travel[m * (m + 1) + members[i]] + VISIT_HOURS;
+        for (int set = 1; set < subsets; set++) {
+            int low = Integer.numberOfTrailingZeros(set);
+            subsetFee[set] = subsetFee[set & (set - 1)] + fee[members[low]];
+            if (subsetFee[set] > budget) continue;
+            int size = Integer.bitCount(set);
+            for (int i = 0; i < count; i++) {
+                double h = hours[set * count + i];
+                if (h > maxHours + EPS) continue;
+                if (h < result[size]) result[size] = h;
+                int from = members[i] * (m + 1);
+                for (int j = 0; j < count; j++) {
+                    if ((set & (1 << j)) != 0) continue;
+                    int next = (set | (1 << j)) * count + j;
+                    double candidateHours = h + travel[from + members[j]] + VISIT_HOURS;
+                    if (candidateHours < hours[next]) hours[next] = candidateHours;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Step 3b: True when a label for the same visited set and last spot is at least as fast and as cheap
+    private boolean dominated(int last, double used, int totalFee) {
+        long key = visitedHash ^ lastKey[last];
+        int slot = (int) (key ^ (key >>> 32)) & (DOMINANCE_SLOTS - 1);
+        if (dominanceKey[slot] == key && dominanceHours[slot] <= used + EPS && dominanceFee[slot] <= totalFee) return true;
+        dominanceKey[slot] = key;
+        dominanceHours[slot] = used;
+        dominanceFee[slot] = totalFee;
+        return false;
+    }
+
+    // Smaller of the fractional time knapsack and the multiplier bound over the spots that still fit
+    private double upperBound(double timeLeft, int budgetLeft) {
+        double byTime = 0, room = timeLeft;
+        for (int a : byTimeRatio) {
+            if (isVisited(a) || fee[a] > budgetLeft) continue;
+            double weight = minIn[a] + VISIT_HOURS;
+            if (weight > timeLeft + EPS) continue;
+            if (weight <= room) {
+                byTime += value[a];
+                room -= weight;
+            } else {
+                byTime += value[a] * room / weight;
+                break;
+            }
+        }
+        return Math.min(Math.min(byTime, classBound(timeLeft)), multiplierBound(timeLeft, budgetLeft, byTime));
+    }
+
+    // Step 3c: sum over value classes of min(visits left, class spots still allowed)
+    private double classBound(double timeLeft) {
+        int k = (int) ((timeLeft + EPS) / minStep);
+        long total = 0;
+        for (int t = 1; t < classCap.length; t++) {
+            total += classCap[t] == Integer.MAX_VALUE ? k : Math.min(k, Math.max(0, classCap[t] - classVisited[t]));
+        }
+        return total;
+    }
+
+    // min over u >= 0 of u * budgetLeft + (k largest of value - u * fee), k = visits that still fit in timeLeft
+    private double multiplierBound(double timeLeft, int budgetLeft, double cap) {
+        int k = (int) ((timeLeft + EPS) / minStep);
+        if (k <= 0) return 0;
+        int count = 0, maxFee = 0;
+        for (int a = 0; a < m; a++) {
+            if (isVisited(a) || fee[a] > budgetLeft || minIn[a] + VISIT_HOURS > timeLeft + EPS) continue;
+            boundValue[count] = value[a];
+            boundFee[count++] = fee[a];
+            maxFee = Math.max(maxFee, fee[a]);
+        }
+        if (count == 0) return 0;
+        // u beyond (largest value) / (smallest positive fee) only pays for budget no spot can use
+        double lo = 0, hi = maxFee == 0 ? 0 : 1.0 / Math.max(1, minPositive(boundFee, count)) * maxValue(count);
+        double best = Math.min(cap, lagrangian(0, budgetLeft, k, count));
+        double x1 = hi - GOLDEN * (hi - lo), x2 = lo + GOLDEN * (hi - lo);
+        double f1 = lagrangian(x1, budgetLeft, k, count), f2 = lagrangian(x2, budgetLeft, k, count);
+        for (int step = 0; step < MULTIPLIER_STEPS && hi > 0; step++) {
+            if (f1 <= f2) {
+                hi = x2; x2 = x1; f2 = f1;
+                x1 = hi - GOLDEN * (hi - lo);
+                f1 = lagrangian(x1, budgetLeft, k, count);
+            } else {
+                lo = x1; x1 = x2; f1 = f2;
+                x2 = lo + GOLDEN * (hi - lo);
+                f2 = lagrangian(x2, budgetLeft, k, count);
+            }
+        }
+        return Math.min(best, Math.min(f1, f2));
+    }
+
+    private double lagrangian(double u, int budgetLeft, int k, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            double gain = boundValue[i] - u * boundFee[i];
+            if (gain <= 0) continue;
+            if (kept < k) {
+                int j = kept++;
+                while (j > 0 && topK[j - 1] < gain) { topK[j] = topK[j - 1]; j--; }
+                topK[j] = gain;
+            } else if (gain > topK[k - 1]) {
+                int j = k - 1;
+                while (j > 0 && topK[j - 1] < gain) { topK[j] = topK[j - 1]; j--; }
+                topK[j] = gain;
+            }
+        }
+        double total = u * budgetLeft;
+        for (int i = 0; i < kept; i++) total += topK[i];
+        return total;
+    }
+
+    private static int minPositive(int[] values, int count) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) if (values[i] > 0) min = Math.min(min, values[i]);
+        return min;
+    }
+
+    private int maxValue(int count) {
+        int max = 0;
+        for (int i = 0; i < count; i++) max = Math.max(max, boundValue[i]);
+        return max;
+    }
+
+    private Itinerary snapshot(boolean optimal) {
+        List<TouristSpot> route = new ArrayList<>();
+        int[] indices = new int[bestLength];
+        for (int i = 0; i < bestLength; i++) {
+            indices[i] = candidate[bestPath[i]];
+            route.add(catalog.spot(indices[i]));
+        }
+        // While the search runs only the root bound is known; after an abort the open subtrees give a tighter one.
+        // Both cover the kept candidates only, so a truncated search falls back to the bound over every reachable spot
+        double open = optimal ? bestValue : truncated ? reachBound : aborted ? openBound : rootBound;
+        int bound = Math.max(bestValue, (int) Math.floor(open + EPS));
+        return new Itinerary(route, bestFee, bestHours, bestValue, optimal, bound, nodes, indices);
+    }
+
+    // Reference: every ordered route, no pruning (small n only)
+    private static int bruteForce(List<TouristSpot> spots, double lat, double lon, int budget, double hours,
+                                  Collection<String> interests, boolean[] used, int totalFee, double time) {
+        int best = 0;
+        for (int i = 0; i < spots.size(); i++) {
+            TouristSpot s = spots.get(i);
+            double t = time + haversineKm(lat, lon, s.lat, s.lon) / CITY_SPEED_KMH + VISIT_HOURS;
+            if (used[i] || totalFee + s.fee > budget || t > hours + EPS) continue;
+            used[i] = true;
+            best = Math.max(best, interestValue(s, interests)
+                + bruteForce(spots, s.lat, s.lon, budget, hours, interests, used, totalFee + s.fee, t));
+            used[i] = false;
+        }
+        return best;
+    }
+
+    static List<TouristSpot> randomCatalog(Random rng, int count) {
+        String[] tags = {"culture", "heritage", "nature", "religious", "adventure", "relaxation", "food", "shopping"};
+        List<TouristSpot> catalog = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            catalog.add(new TouristSpot("Spot" + i, 27.65 + rng.nextDouble() * 0.1, 85.25 + rng.nextDouble() * 0.15,
+                rng.nextInt(8) * 100, tags[rng.nextInt(tags.length)], tags[rng.nextInt(tags.length)]));
+        }
+        return catalog;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: The five Kathmandu spots from Thamel, budget 500, 10 hours, interest "culture"
+        List<TouristSpot> sample = Arrays.asList(
+            new TouristSpot("Pashupatinath", 27.7104, 85.3488, 100, "culture", "religious"),
+            new TouristSpot("Swayambhunath", 27.7149, 85.2906, 200, "culture", "heritage"),
+            new TouristSpot("Garden of Dreams", 27.7125, 85.3170, 150, "nature", "relaxation"),
+            new TouristSpot("Chandragiri", 27.6616, 85.2458, 700, "nature", "adventure"),
+            new TouristSpot("Durbar Square", 27.7048, 85.3076, 100, "culture", "heritage")
+        );
+        ItinerarySolver solver = new ItinerarySolver(sample, 27.7154, 85.3123);
+        List<String> culture = Arrays.asList("culture");
+        System.out.println("Test Case 1 Output: " + solver.solve(500, 10, culture, System.nanoTime() + 1_000_000_000L, null));
+        System.out.println("  with 3 hours: " + solver.solve(500, 3, culture, System.nanoTime() + 1_000_000_000L, null));
+
+        // TEST CASE 2: Random 8-spot catalogs agree with enumerating every ordered route
+        Random rng = new Random(19);
+        boolean matches = true;
+        for (int t = 0; t < 200; t++) {
+            List<TouristSpot> catalog = randomCatalog(rng, 8);
+            int budget = 200 + rng.nextInt(1500);
+            double hours = 1 + rng.nextInt(8);
+            List<String> interests = Arrays.asList("culture", "nature");
+            Itinerary found = new ItinerarySolver(catalog, 27.7, 85.32)
+                .solve(budget, hours, interests, System.nanoTime() + 5_000_000_000L, null);
+            matches &= found.optimal && found.value == bruteForce(catalog, 27.7, 85.32, budget, hours, interests,
+                new boolean[8], 0, 0);
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: 400 spots, a 1.5 s deadline, improvements streamed as they are found, gap to the proven bound
+        List<TouristSpot> city = randomCatalog(rng, 400);
+        long start = System.nanoTime();
+        int[] improvements = {0};
+        long[] lastImprovementMs = {0};
+        Itinerary best = new ItinerarySolver(city, 27.7, 85.32).solve(3000, 10, Arrays.asList("heritage", "food"),
+            start + 1_500_000_000L, it -> {
+                improvements[0]++;
+                lastImprovementMs[0] = (System.nanoTime() - start) / 1_000_000;
+            });
+        System.out.println("Test Case 3 Output: value " + best.value + " with " + best.route.size() + " spots, Rs. "
+            + best.totalFee + String.format(", %.2f h", best.hours) + " | " + improvements[0]
+            + " improvements, last at " + lastImprovementMs[0] + " ms | " + best.nodes + " nodes in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms, optimal=" + best.optimal
+            + String.format(", bound %d (gap %.1f%%)", best.bound, best.gap() * 100));
+        // Half the budget: cheap heritage/food spots are scarce, so the search runs into the deadline
+        long halfStart = System.nanoTime();
+        best = new ItinerarySolver(city, 27.7, 85.32).solve(1500, 10, Arrays.asList("heritage", "food"),
+            halfStart + 1_500_000_000L, null);
+        System.out.println("  budget 1500: value " + best.value + " | " + best.nodes + " nodes in "
+            + (System.nanoTime() - halfStart) / 1_000_000 + " ms, optimal=" + best.optimal
+            + String.format(", bound %d (gap %.1f%%)", best.bound, best.gap() * 100));
+
+        // TEST CASE 4: A city-wide catalog of 100,000 spots, indexed once; reachable candidates are capped
+        SpotCatalog wide = new SpotCatalog(randomCatalog(rng, 100_000));
+        long wideStart = System.nanoTime();
+        best = new ItinerarySolver(wide, 27.7, 85.32).solve(2000, 6, Arrays.asList("culture"), wideStart + 1_000_000_000L, null);
+        System.out.println("Test Case 4 Output: value " + best.value + " with " + best.route.size() + " spots in "
+            + (System.nanoTime() - wideStart) / 1_000_000 + " ms, optimal=" + best.optimal
+            + String.format(", bound %d (gap %.1f%%)", best.bound, best.gap() * 100));
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: [Durbar Square -> Swayambhunath -> Pashupatinath] value 6, Rs. 400, 3.45 h (optimal)
+ *   with 3 hours: [Durbar Square -> Swayambhunath] value 4, Rs. 300, 2.16 h (optimal)
+ * Test Case 2 Output: true
+ * Test Case 3 Output: value 24 with 8 spots, Rs. 2900, 9.19 h | 1 improvements, last at 53 ms | 0 nodes in 66 ms, optimal=true, bound 24 (gap 0.0%)
+ *   budget 1500: value 23 | 265216 nodes in 1551 ms, optimal=false, bound 24 (gap 4.2%)
+ * Test Case 4 Output: value 10 with 5 spots in 280 ms, optimal=false, bound 12 (gap 16.7%)
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,298 @@
+package Q5A;
+
+// Algorithm Description (Algorithm Design)
+// runOptimization listed spots in the order they were picked and never looked at the travel between them.
+// RoutePlanner orders a chosen set of spots into a short walk from the start point (open path, no return) within a small
+// time budget, so it can run on every button click.
+
+// Step 1: Distances: Spot-to-spot distances come from SpotCatalog's cached matrix (built once, off the EDT, by loadData).
+// Only the k start-to-spot distances are computed per call. They are copied into a (k + 1)^2 double[] so the improvement
+// loops read one flat array. That matrix and the path buffers belong to the planner and only grow, so a call allocates
+// just the returned order; a planner is therefore used by one thread at a time (the GUI makes one per search).
+// Step 2: Seed: Starting from the start point, repeatedly walk to the closest unvisited spot (nearest neighbour). If the
+// order the spots were given in is no longer, it is the seed instead, so the result is never longer than the input
+// (the solver's order is feasible, and a routed plan must not break the time limit).
+// Step 3: 2-opt: Reverse any segment p[i..j] whose reversal shortens the path. At the open end there is no edge after p[j].
+// Step 4: Or-opt: Move a run of 1-3 consecutive spots, as is or reversed, to the best other gap.
+// Step 5: Budget: Steps 3 and 4 repeat until neither finds an improvement or the nanosecond budget runs out (one pass always
+// runs). The best path so far is always valid, so stopping early only gives up some distance.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Question 5A: Tourist Spot Optimizer (Route Ordering)
+ * Nearest neighbour plus 2-opt and Or-opt over the cached distance matrix, under a time budget.
+ */
+public class RoutePlanner {
+    private static final double EPS = 1e-9;
+
+    private final SpotCatalog catalog;
+    private final double startLat, startLon;
+
+    // Reused between calls; sized for the largest k so far
+    private double[] d = new double[0]; // [(k + 1) * from + to], node k is the start point
+    private int[] path = new int[0];
+    private boolean[] used = new boolean[0];
+    private final int[] moved = new int[3];
+
+    public RoutePlanner(SpotCatalog catalog, double startLat, double startLon) {
+        this.catalog = catalog;
+        this.startLat = startLat;
+        this.startLon = startLon;
+    }
+
+    /** Catalog indices of spots, reordered into a short path from the start. */
+    public int[] order(int[] spots, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int k = spots.length;
+        if (k <= 1) return spots.clone();
+
+        // Step 1: Local matrix; node k is the start point
+        int w = k + 1;
+        if (path.length < w) {
+            d = new double[w * w];
+            path = new int[w];
+            used = new boolean[w];
+        }
+        double[] d = this.d;
+        int[] path = this.path;
+        boolean[] used = this.used;
+        Arrays.fill(used, 0, k, false);
+        for (int a = 0; a < k; a++) {
+            double fromStart = ItinerarySolver.haversineKm(startLat, startLon, catalog.lat(spots[a]), catalog.lon(spots[a]));
+            d[k * w + a] = fromStart;
+            d[a * w + k] = fromStart;
+            for (int b = a + 1; b < k; b++) {
+                double km = catalog.distanceKm(spots[a], spots[b]);
+                d[a * w + b] = km;
+                d[b * w + a] = km;
+            }
+        }
+
+        // Step 2: Nearest neighbour seed; path[0] is the start
+        path[0] = k;
+        for (int pos = 1; pos < w; pos++) {
+            int last = path[pos - 1], next = -1;
+            for (int a = 0; a < k; a++) {
+                if (!used[a] && (next < 0 || d[last * w + a] < d[last * w + next])) next = a;
+            }
+            used[next] = true;
+            path[pos] = next;
+        }
+
+        // Keep the given order as the seed when nearest neighbour did not beat it
+        if (length(path, d, w) >= inputLength(d, w)) {
+            for (int pos = 1; pos < w; pos++) path[pos] = pos - 1;
+        }
+
+        // Steps 3-5: Improve until stable or out of time (at least one pass, unless the budget is zero)
+        boolean improved = budgetNanos > 0;
+        while (improved) {
+            improved = twoOpt(path, d, w) | orOpt(path, d, w, moved);
+            if (System.nanoTime() - deadline > 0) break;
+        }
+
+        int[] ordered = new int[k];
+        for (int pos = 1; pos < w; pos++) ordered[pos - 1] = spots[path[pos]];
+        return ordered;
+    }
+
+    private static double length(int[] path, double[] d, int w) {
+        double km = 0;
+        for (int pos = 1; pos < w; pos++) km += d[path[pos - 1] * w + path[pos]];
+        return km;
+    }
+
+    // Spots in the given order: start (node w - 1), then 0, 1, ..., w - 2
+    private static double inputLength(double[] d, int w) {
+        double km = d[(w - 1) * w];
+        for (int a = 1; a < w - 1; a++) km += d[(a - 1) * w + a];
+        return km;
+    }
+
+    // Edge (a, b) length; b = -1 past the open end
+    private static double edge(double[] d, int w, int a, int b) {
+        return b < 0 ? 0 : d[a * w + b];
+    }
+
+    // path[0 .. w - 1] is the live path; the buffer may be longer
+    private static boolean twoOpt(int[] path, double[] d, int w) {
+        int n = w;
+        boolean improved = false;
+        for (int i = 1; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int after = j + 1 < n ? path[j + 1] : -1;
+                double delta = d[path[i - 1] * w + path[j]] + edge(d, w, path[i], after)
+                    - d[path[i - 1] * w + path[i]] - edge(d, w, path[j], after);
+                if (delta < -EPS) {
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        int t = path[a]; path[a] = path[b]; path[b] = t;
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static boolean orOpt(int[] path, double[] d, int w, int[] moved) {
+        int n = w;
+        boolean improved = false;
+        for (int len = 1; len <= 3; len++) {
+            for (int i = 1; i + len <= n; i++) {
+                int first = path[i], last = path[i + len - 1];
+                int before = path[i - 1], after = i + len < n ? path[i + len] : -1;
+                double removeGain = d[before * w + first] + edge(d, w, last, after) - edge(d, w, before, after);
+
+                // Best gap (p[g], p[g + 1]) outside the run, inserted as is or reversed
+                double bestDelta = -EPS;
+                int bestGap = -1;
+                boolean bestReversed = false;
+                for (int g = 0; g < n; g++) {
+                    if (g >= i - 1 && g < i + len) continue;
+                    int a = path[g], b = g + 1 < n ? path[g + 1] : -1;
+                    double base = edge(d, w, a, b);
+                    double forward = d[a * w + first] + edge(d, w, last, b) - base - removeGain;
+                    double reversed = d[a * w + last] + edge(d, w, first, b) - base - removeGain;
+                    if (forward < bestDelta) { bestDelta = forward; bestGap = g; bestReversed = false; }
+                    if (reversed < bestDelta) { bestDelta = reversed; bestGap = g; bestReversed = true; }
+                }
+                if (bestGap < 0) continue;
+
+                for (int t = 0; t < len; t++) moved[t] = path[i + (bestReversed ? len - 1 - t : t)];
+                if (bestGap > i) {
+                    // Shift p[i + len .. bestGap] left, then place the run after them
+                    System.arraycopy(path, i + len, path, i, bestGap - (i + len) + 1);
+                    System.arraycopy(moved, 0, path, bestGap - len + 1, len);
+                } else {
+                    // Shift p[bestGap + 1 .. i - 1] right, then place the run after p[bestGap]
+                    System.arraycopy(path, bestGap + 1, path, bestGap + 1 + len, i - bestGap - 1);
+                    System.arraycopy(moved, 0, path, bestGap + 1, len);
+                }
+                improved = true;
+            }
+        }
+        return improved;
+    }
+
+    /** Kilometres walked from the start through spots in the given order. */
+    public double pathKm(int[] spots) {
+        double km = 0, lat = startLat, lon = startLon;
+        for (int i = 0; i < spots.length; i++) {
+            km += i == 0 ? ItinerarySolver.haversineKm(lat, lon, catalog.lat(spots[0]), catalog.lon(spots[0]))
+                : catalog.distanceKm(spots[i - 1], spots[i]);
+        }
+        return km;
+    }
+
+    /** The same itinerary in a visiting order that is never longer, with its hours recomputed if the order changed. */
+    public ItinerarySolver.Itinerary reorder(ItinerarySolver.Itinerary itinerary, long budgetNanos) {
+        int[] ordered = order(itinerary.spotIndices, budgetNanos);
+        if (Arrays.equals(ordered, itinerary.spotIndices)) return itinerary;
+        List<TouristSpot> route = new ArrayList<>();
+        for (int i : ordered) route.add(catalog.spot(i));
+        double hours = pathKm(ordered) / ItinerarySolver.CITY_SPEED_KMH + ordered.length * ItinerarySolver.VISIT_HOURS;
+        return new ItinerarySolver.Itinerary(route, itinerary.totalFee, hours, itinerary.value, itinerary.optimal,
+            itinerary.bound, itinerary.nodes, ordered);
+    }
+
+    // Reference: shortest open path over every permutation (small k only)
+    private double bestPathKm(int[] spots, int depth) {
+        if (depth == spots.length) return pathKm(spots);
+        double best = Double.MAX_VALUE;
+        for (int i = depth; i < spots.length; i++) {
+            int t = spots[depth]; spots[depth] = spots[i]; spots[i] = t;
+            best = Math.min(best, bestPathKm(spots, depth + 1));
+            t = spots[depth]; spots[depth] = spots[i]; spots[i] = t;
+        }
+        return best;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: The five Kathmandu spots from Thamel, in catalog order vs. routed
+        List<TouristSpot> sample = Arrays.asList(
+            new TouristSpot("Pashupatinath", 27.7104, 85.3488, 100, "culture", "religious"),
+            new TouristSpot("Swayambhunath", 27.7149, 85.2906, 200, "culture", "heritage"),
+            new TouristSpot("Garden of Dreams", 27.7125, 85.3170, 150, "nature", "relaxation"),
+            new TouristSpot("Chandragiri", 27.6616, 85.2458, 700, "nature", "adventure"),
+            new TouristSpot("Durbar Square", 27.7048, 85.3076, 100, "culture", "heritage")
+        );
+        SpotCatalog catalog = new SpotCatalog(sample);
+        RoutePlanner planner = new RoutePlanner(catalog, 27.7154, 85.3123);
+        int[] all = {0, 1, 2, 3, 4};
+        int[] routed = planner.order(all, 1_000_000);
+        StringBuilder names = new StringBuilder();
+        for (int i : routed) names.append(names.length() == 0 ? "" : " -> ").append(catalog.spot(i).name);
+        System.out.println("Test Case 1 Output: " + names + String.format(" | %.2f km (catalog order %.2f km)",
+            planner.pathKm(routed), planner.pathKm(all)));
+
+        // TEST CASE 2: Random 8-spot routes against the best of all 40,320 orders
+        Random rng = new Random(21);
+        SpotCatalog city = new SpotCatalog(ItinerarySolver.randomCatalog(rng, 2000));
+        RoutePlanner cityPlanner = new RoutePlanner(city, 27.7, 85.32);
+        int exact = 0;
+        double worstGap = 0;
+        for (int t = 0; t < 100; t++) {
+            int[] spots = rng.ints(0, city.size()).distinct().limit(8).toArray();
+            double got = cityPlanner.pathKm(cityPlanner.order(spots, 1_000_000));
+            double best = cityPlanner.bestPathKm(spots.clone(), 0);
+            if (got <= best + 1e-9) exact++;
+            worstGap = Math.max(worstGap, (got - best) / best * 100);
+        }
+        System.out.println("Test Case 2 Output: " + exact + "/100 optimal, worst gap " + String.format("%.2f%%", worstGap));
+
+        // TEST CASE 3: Fresh 2,000-spot catalog: one matrix build (as loadData does), then 1,000 routings of 40 spots
+        // with a 1 ms budget, timed after 3,000 warm-up rounds of the same loop so the JIT has finished compiling it
+        SpotCatalog fresh = new SpotCatalog(ItinerarySolver.randomCatalog(rng, 2000));
+        RoutePlanner freshPlanner = new RoutePlanner(fresh, 27.7, 85.32);
+        long start = System.nanoTime();
+        fresh.buildDistances();
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        double nearestKm = 0, routedKm = 0;
+        long[] micros = new long[1000];
+        for (int t = -3000; t < micros.length; t++) {
+            int[] spots = rng.ints(0, fresh.size()).distinct().limit(40).toArray();
+            double nearest = freshPlanner.pathKm(freshPlanner.order(spots, 0)); // Zero budget: the seed only
+            start = System.nanoTime();
+            int[] ordered = freshPlanner.order(spots, 1_000_000);
+            long took = (System.nanoTime() - start) / 1000;
+            if (t < 0) continue;
+            micros[t] = took;
+            nearestKm += nearest;
+            routedKm += freshPlanner.pathKm(ordered);
+        }
+        Arrays.sort(micros);
+        System.out.println("Test Case 3 Output: matrix built once in " + buildMs + " ms | 2-opt + Or-opt "
+            + String.format("%.1f%%", (1 - routedKm / nearestKm) * 100) + " shorter than nearest neighbour | routing median "
+            + micros[500] + " us, p99 " + micros[990] + " us");
+
+        // TEST CASE 4: 3,000 solver itineraries: routing never makes one longer or breaks its time limit
+        int longer = 0, overLimit = 0, shortened = 0;
+        String[] interests = {"culture", "heritage", "nature", "food"};
+        for (int t = 0; t < 3000; t++) {
+            SpotCatalog area = new SpotCatalog(ItinerarySolver.randomCatalog(rng, 12));
+            RoutePlanner areaPlanner = new RoutePlanner(area, 27.7, 85.32);
+            double limit = 2 + rng.nextInt(15) * 0.5;
+            ItinerarySolver.Itinerary solved = new ItinerarySolver(area, 27.7, 85.32).solve(300 + rng.nextInt(20) * 100, limit,
+                Arrays.asList(interests[rng.nextInt(4)], interests[rng.nextInt(4)]), System.nanoTime() + 50_000_000L, null);
+            ItinerarySolver.Itinerary shown = areaPlanner.reorder(solved, 1_000_000);
+            if (shown.getHours() > solved.getHours()) longer++;
+            if (shown.getHours() > limit) overLimit++;
+            if (shown.getHours() < solved.getHours()) shortened++;
+        }
+        System.out.println("Test Case 4 Output: reorder(it).getHours() <= it.getHours(): " + (longer == 0) + " (" + longer
+            + " longer, " + overLimit + " over the limit, " + shortened + " shortened)");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: Garden of Dreams -> Pashupatinath -> Durbar Square -> Swayambhunath -> Chandragiri | 17.21 km (catalog order 28.76 km)
+ * Test Case 2 Output: 83/100 optimal, worst gap 6.85%
+ * Test Case 3 Output: matrix built once in 324 ms | 2-opt + Or-opt 13.0% shorter than nearest neighbour | routing median 126 us, p99 212 us
+ * Test Case 4 Output: reorder(it).getHours() <= it.getHours(): true (0 longer, 0 over the limit, 1668 shortened)
+ * -----------------------------------------------------------
+ */
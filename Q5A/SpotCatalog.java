@@ -0,0 +1,303 @@
+package Q5A;
+
+// Algorithm Description (Algorithm Design)
+// Scoring a spot streams its List<String> tags against the interest list, once per spot per round.
+// lat/lon are never used to skip far-away spots, so every query touches the whole catalog.
+// SpotCatalog indexes both, so filtering scales to city-wide catalogs (100k spots).
+
+// Step 1: Tag Interning: Every distinct tag gets a bit position. Each spot stores its tags as a bitmask (long words, one
+// word for up to 64 tags), and a set of interests becomes a mask the same way. The match count is then
+// Long.bitCount(spotMask & interestMask): no streams, no string comparisons.
+// Step 2: Grid Index: The bounding box of the catalog is cut into square-ish cells sized for about 4 spots each. Spot
+// indices are sorted by cell into one int[] (CSR layout: cellStart[c] .. cellStart[c + 1]).
+// Step 3: Radius Query: Only the cells overlapping the query's lat/lon bounding box are scanned. The exact haversine
+// check runs just on the spots in those cells.
+// Step 4: Nearest Query: A radius query that doubles until it holds k spots, then the k closest by distance. Any spot
+// outside the radius is farther than every spot inside it, so the answer is exact.
+// Step 5: Distance Cache: For catalogs up to DISTANCE_CACHE_LIMIT spots, pairwise haversine distances are computed
+// once into a packed upper-triangle double[], by buildDistances() (loadData calls it off the EDT) or else on first use. A new catalog is built whenever loadData changes the spots,
+// so the cache never goes stale. Larger catalogs fall back to computing each distance.
+// Coordinates are treated as a flat box (no antimeridian wrap), which is fine at city scale.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Question 5A: Tourist Spot Optimizer (Catalog Index)
+ * Interned tag bitmasks and a uniform lat/lon grid for radius and nearest-spot queries.
+ */
+public class SpotCatalog {
+    private static final double KM_PER_DEGREE = 111.195;
+    private static final int SPOTS_PER_CELL = 4;
+    static final int DISTANCE_CACHE_LIMIT = 2048; // 2048 spots -> about 2.1M doubles (16 MB)
+
+    private final List<TouristSpot> spots;
+    private final Map<String, Integer> tagBit = new HashMap<>();
+    private final int words;
+    private final long[] tagMask;     // [spot * words + w]
+    private final double[] lat, lon;
+
+    private final double minLat, minLon, cellDeg;
+    private final int rows, cols;
+    private final int[] cellStart;    // rows * cols + 1
+    private final int[] cellSpots;
+    private volatile double[] distances; // km, [j * (j - 1) / 2 + i] for i < j
+
+    public SpotCatalog(List<TouristSpot> spots) {
+        this.spots = new ArrayList<>(spots);
+        int n = this.spots.size();
+
+        // Step 1: Intern tags
+        for (TouristSpot s : this.spots) {
+            for (String tag : s.tags) tagBit.putIfAbsent(tag, tagBit.size());
+        }
+        words = Math.max(1, (tagBit.size() + 63) / 64);
+        tagMask = new long[n * words];
+        lat = new double[n];
+        lon = new double[n];
+        double maxLat = -90, maxLon = -180, loLat = 90, loLon = 180;
+        for (int i = 0; i < n; i++) {
+            TouristSpot s = this.spots.get(i);
+            for (String tag : s.tags) {
+                int bit = tagBit.get(tag);
+                tagMask[i * words + (bit >>> 6)] |= 1L << bit;
+            }
+            lat[i] = s.lat;
+            lon[i] = s.lon;
+            loLat = Math.min(loLat, s.lat); maxLat = Math.max(maxLat, s.lat);
+            loLon = Math.min(loLon, s.lon); maxLon = Math.max(maxLon, s.lon);
+        }
+
+        // Step 2: Grid sized for about SPOTS_PER_CELL spots per cell
+        minLat = n == 0 ? 0 : loLat;
+        minLon = n == 0 ? 0 : loLon;
+        double area = Math.max((maxLat - minLat) * (maxLon - minLon), 1e-12);
+        cellDeg = Math.max(Math.sqrt(area * SPOTS_PER_CELL / Math.max(n, 1)), 1e-6);
+        rows = n == 0 ? 1 : (int) Math.min((maxLat - minLat) / cellDeg, 4096) + 1;
+        cols = n == 0 ? 1 : (int) Math.min((maxLon - minLon) / cellDeg, 4096) + 1;
+        cellStart = new int[rows * cols + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = row(lat[i]) * cols + col(lon[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < rows * cols; c++) cellStart[c + 1] += cellStart[c];
+        cellSpots = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, rows * cols);
+        for (int i = 0; i < n; i++) cellSpots[fill[cellOf[i]]++] = i;
+    }
+
+    public int size() {
+        return spots.size();
+    }
+
+    public TouristSpot spot(int i) {
+        return spots.get(i);
+    }
+
+    public int tagCount() {
+        return tagBit.size();
+    }
+
+    /** Interest mask for matches(); tags that no spot carries are ignored. */
+    public long[] interestMask(Collection<String> interests) {
+        long[] mask = new long[words];
+        for (String interest : interests) {
+            Integer bit = tagBit.get(interest);
+            if (bit != null) mask[bit >>> 6] |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /** Number of the spot's tags that are in the interest mask. */
+    public int matches(int spot, long[] interestMask) {
+        int count = 0;
+        for (int w = 0; w < words; w++) count += Long.bitCount(tagMask[spot * words + w] & interestMask[w]);
+        return count;
+    }
+
+    /** Haversine km between two spots, read from the cached matrix when the catalog is small enough. */
+    public double distanceKm(int a, int b) {
+        if (a == b) return 0;
+        double[] d = distances;
+        if (d == null) {
+            if (spots.size() > DISTANCE_CACHE_LIMIT) return ItinerarySolver.haversineKm(lat[a], lon[a], lat[b], lon[b]);
+            d = distanceMatrix();
+        }
+        int i = Math.min(a, b), j = Math.max(a, b);
+        return d[j * (j - 1) / 2 + i];
+    }
+
+    /** Step 5: Builds the distance matrix now, so later distanceKm calls never pay for it. No-op for large catalogs. */
+    public void buildDistances() {
+        if (spots.size() <= DISTANCE_CACHE_LIMIT) distanceMatrix();
+    }
+
+    private synchronized double[] distanceMatrix() {
+        if (distances == null) {
+            int n = spots.size();
+            double[] d = new double[n * (n - 1) / 2];
+            for (int j = 1; j < n; j++) {
+                int row = j * (j - 1) / 2;
+                for (int i = 0; i < j; i++) d[row + i] = ItinerarySolver.haversineKm(lat[i], lon[i], lat[j], lon[j]);
+            }
+            distances = d;
+        }
+        return distances;
+    }
+
+    public double lat(int spot) { return lat[spot]; }
+
+    public double lon(int spot) { return lon[spot]; }
+
+    private int row(double latitude) {
+        return (int) Math.max(0, Math.min(rows - 1, (latitude - minLat) / cellDeg));
+    }
+
+    private int col(double longitude) {
+        return (int) Math.max(0, Math.min(cols - 1, (longitude - minLon) / cellDeg));
+    }
+
+    /** Indices of spots within km of (latitude, longitude), unordered. */
+    public int[] withinRadius(double latitude, double longitude, double km) {
+        return filter(latitude, longitude, km, null, 0);
+    }
+
+    /** Spots within km that match at least minMatches of the interests in mask. */
+    public int[] filter(double latitude, double longitude, double km, long[] interestMask, int minMatches) {
+        int[] out = new int[16];
+        int count = 0;
+        if (spots.isEmpty()) return new int[0];
+
+        double dLat = km / KM_PER_DEGREE;
+        // Longitude degrees shrink with latitude; use the widest span inside the box
+        double widestCos = Math.cos(Math.toRadians(Math.min(89.9, Math.max(Math.abs(latitude - dLat), Math.abs(latitude + dLat)))));
+        double dLon = km / (KM_PER_DEGREE * widestCos);
+        if (latitude - dLat <= minLat + rows * cellDeg && latitude + dLat >= minLat
+            && longitude - dLon <= minLon + cols * cellDeg && longitude + dLon >= minLon) {
+            int r0 = row(latitude - dLat), r1 = row(latitude + dLat);
+            int c0 = col(longitude - dLon), c1 = col(longitude + dLon);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int i = cellSpots[k];
+                        if (interestMask != null && matches(i, interestMask) < minMatches) continue;
+                        if (Math.abs(lat[i] - latitude) > dLat || Math.abs(lon[i] - longitude) > dLon) continue;
+                        if (ItinerarySolver.haversineKm(latitude, longitude, lat[i], lon[i]) > km) continue;
+                        if (count == out.length) out = Arrays.copyOf(out, count * 2);
+                        out[count++] = i;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /** The k spots closest to (latitude, longitude), nearest first. */
+    public int[] nearest(double latitude, double longitude, int k) {
+        int n = spots.size();
+        k = Math.min(k, n);
+        if (k == 0) return new int[0];
+        double diagonalKm = ItinerarySolver.haversineKm(minLat, minLon, minLat + rows * cellDeg, minLon + cols * cellDeg)
+            + ItinerarySolver.haversineKm(latitude, longitude, minLat, minLon);
+        double km = Math.max(cellDeg * KM_PER_DEGREE, 0.05);
+        int[] found = withinRadius(latitude, longitude, km);
+        while (found.length < k && km < diagonalKm) {
+            km *= 2;
+            found = withinRadius(latitude, longitude, km);
+        }
+        if (found.length < k) found = withinRadius(latitude, longitude, Double.MAX_VALUE / 4);
+
+        // Sort by distance: pack (distance bits, index); non-negative doubles order like their bits
+        long[] keyed = new long[found.length];
+        for (int j = 0; j < found.length; j++) {
+            float d = (float) ItinerarySolver.haversineKm(latitude, longitude, lat[found[j]], lon[found[j]]);
+            keyed[j] = ((long) Float.floatToIntBits(d) << 32) | found[j];
+        }
+        Arrays.sort(keyed);
+        int[] result = new int[k];
+        for (int j = 0; j < k; j++) result[j] = (int) keyed[j];
+        return result;
+    }
+
+    public static void main(String[] args) {
+        // TEST CASE 1: The five Kathmandu spots: tags, culture matches and spots within 3 km of Thamel
+        List<TouristSpot> sample = Arrays.asList(
+            new TouristSpot("Pashupatinath", 27.7104, 85.3488, 100, "culture", "religious"),
+            new TouristSpot("Swayambhunath", 27.7149, 85.2906, 200, "culture", "heritage"),
+            new TouristSpot("Garden of Dreams", 27.7125, 85.3170, 150, "nature", "relaxation"),
+            new TouristSpot("Chandragiri", 27.6616, 85.2458, 700, "nature", "adventure"),
+            new TouristSpot("Durbar Square", 27.7048, 85.3076, 100, "culture", "heritage")
+        );
+        SpotCatalog catalog = new SpotCatalog(sample);
+        long[] culture = catalog.interestMask(Arrays.asList("culture", "heritage"));
+        StringBuilder line = new StringBuilder(catalog.tagCount() + " tags |");
+        for (int i = 0; i < catalog.size(); i++) line.append(' ').append(catalog.spot(i).name).append('=').append(catalog.matches(i, culture));
+        line.append(" | within 3 km of Thamel:");
+        int[] near = catalog.withinRadius(27.7154, 85.3123, 3);
+        Arrays.sort(near);
+        for (int i : near) line.append(' ').append(catalog.spot(i).name);
+        System.out.println("Test Case 1 Output: " + line);
+
+        // TEST CASE 2: 100,000 spots; radius, interest and nearest queries agree with a linear scan
+        Random rng = new Random(20);
+        List<TouristSpot> city = ItinerarySolver.randomCatalog(rng, 100_000);
+        SpotCatalog index = new SpotCatalog(city);
+        List<String> interests = Arrays.asList("heritage", "food");
+        long[] mask = index.interestMask(interests);
+        boolean matches = true;
+        for (int q = 0; q < 200; q++) {
+            double qLat = 27.65 + rng.nextDouble() * 0.1, qLon = 85.25 + rng.nextDouble() * 0.15, km = rng.nextDouble() * 3;
+            int[] got = index.filter(qLat, qLon, km, mask, 1);
+            Arrays.sort(got);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < city.size(); i++) {
+                TouristSpot s = city.get(i);
+                if (s.tags.stream().anyMatch(interests::contains)
+                    && ItinerarySolver.haversineKm(qLat, qLon, s.lat, s.lon) <= km) expected.add(i);
+            }
+            matches &= Arrays.equals(got, expected.stream().mapToInt(Integer::intValue).toArray());
+
+            int[] nearestFive = index.nearest(qLat, qLon, 5);
+            double[] all = new double[city.size()];
+            for (int i = 0; i < city.size(); i++) all[i] = ItinerarySolver.haversineKm(qLat, qLon, city.get(i).lat, city.get(i).lon);
+            double[] sorted = all.clone();
+            Arrays.sort(sorted);
+            for (int j = 0; j < 5; j++) matches &= Math.abs(all[nearestFive[j]] - sorted[j]) < 1e-6;
+        }
+        System.out.println("Test Case 2 Output: " + matches);
+
+        // TEST CASE 3: 10,000 "matching spots within 1 km" queries, index vs. stream filter over the list
+        double[][] queries = new double[10_000][];
+        for (int q = 0; q < queries.length; q++) queries[q] = new double[]{27.65 + rng.nextDouble() * 0.1, 85.25 + rng.nextDouble() * 0.15};
+        long start = System.nanoTime();
+        long indexed = 0;
+        for (double[] q : queries) indexed += index.filter(q[0], q[1], 1, mask, 1).length;
+        long indexMs = (System.nanoTime() - start) / 1_000_000;
+        start = System.nanoTime();
+        long scanned = 0;
+        for (int q = 0; q < 200; q++) {
+            for (TouristSpot s : city) {
+                if (s.tags.stream().filter(interests::contains).count() >= 1
+                    && ItinerarySolver.haversineKm(queries[q][0], queries[q][1], s.lat, s.lon) <= 1) scanned++;
+            }
+        }
+        long scanMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Test Case 3 Output: " + indexed / queries.length + " spots per query | index: " + indexMs
+            + " ms for 10,000 queries, stream scan: " + scanMs + " ms for 200 queries");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 6 tags | Pashupatinath=1 Swayambhunath=2 Garden of Dreams=0 Chandragiri=0 Durbar Square=2 | within 3 km of Thamel: Swayambhunath Garden of Dreams Durbar Square
+ * Test Case 2 Output: true
+ * Test Case 3 Output: 788 spots per query | index: 2296 ms for 10,000 queries, stream scan: 3976 ms for 200 queries
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,18 @@
+package Q5A;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Task 2: Data Model
+// Shared by the GUI, SpotCatalog, ItinerarySolver and RoutePlanner, so it lives in its own source file.
+class TouristSpot {
+    String name;
+    double lat, lon;
+    int fee;
+    List<String> tags;
+
+    TouristSpot(String name, double lat, double lon, int fee, String... tags) {
+        this.name = name; this.lat = lat; this.lon = lon;
+        this.fee = fee; this.tags = Arrays.asList(tags);
+    }
+}
@@ -0,0 +1,270 @@
+package Q5B;
+
+// Algorithm Description (Algorithm Design)
+// Readings change every few minutes, but every "Fetch Weather" click fetched every city twice, and two callers asking for
+// the same city at the same moment sent two requests. CachingWeatherSource wraps any WeatherSource and keeps one entry per
+// city, holding its last reading and the request in flight, if any.
+
+// Step 1: Fresh: A reading younger than ttl is returned at once as a completed future (hit).
+// Step 2: Stale-While-Revalidate: A reading older than ttl but younger than ttl + stale is still returned at once (stale
+// hit), and one background refresh is started if none is running. Callers never wait for a revalidation.
+// Step 3: Coalescing: With no usable reading, the first caller starts the request (miss). Callers that arrive while it is
+// in flight get a copy of the same future (coalesced), so N concurrent callers cost one request. Each caller gets its own
+// copy, so one caller cancelling does not cancel the others.
+// Step 4: Failures: A failed load fails every caller that shared it and is not cached, so the next call retries. A failed
+// refresh keeps serving the stale reading until it is past ttl + stale.
+// Step 5: Size Bound: Entries live in an access-ordered LinkedHashMap. When it exceeds maxEntries, the least recently used
+// city is evicted (O(1)). An evicted entry's in-flight request still completes for the callers already waiting on it.
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector (Cache)
+ * TTL cache with stale-while-revalidate, per-city request coalescing and LRU eviction.
+ */
+public class CachingWeatherSource implements WeatherSource {
+    private final WeatherSource delegate;
+    private final long ttlNanos, staleNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder(), staleHits = new LongAdder(), misses = new LongAdder(),
+        coalesced = new LongAdder(), refreshes = new LongAdder(), evictions = new LongAdder();
+
+    private static final class Entry {
+        WeatherReading value; // Last good reading, or null
+        long fetchedAt;
+        CompletableFuture<WeatherReading> inFlight; // Load or refresh in progress, or null
+    }
+
+    public CachingWeatherSource(WeatherSource delegate, Duration ttl, Duration staleWhileRevalidate, int maxEntries) {
+        this(delegate, ttl, staleWhileRevalidate, maxEntries, System::nanoTime);
+    }
+
+    CachingWeatherSource(WeatherSource delegate, Duration ttl, Duration staleWhileRevalidate, int maxEntries,
+                         LongSupplier clock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1");
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleWhileRevalidate.toNanos();
+        this.clock = clock;
+        // Step 5: Access order, evicting the eldest on overflow
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<WeatherReading> fetch(String city) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(city, c -> new Entry());
+        }
+        synchronized (entry) {
+            if (entry.value != null) {
+                long age = clock.getAsLong() - entry.fetchedAt;
+                // Step 1: Fresh
+                if (age < ttlNanos) {
+                    hits.increment();
+                    return CompletableFuture.completedFuture(entry.value);
+                }
+                // Step 2: Stale, with one background refresh
+                if (age < ttlNanos + staleNanos) {
+                    staleHits.increment();
+                    if (entry.inFlight == null) {
+                        refreshes.increment();
+                        load(city, entry);
+                    }
+                    return CompletableFuture.completedFuture(entry.value);
+                }
+            }
+            // Step 3: Join the request in flight, or start it
+            if (entry.inFlight != null) {
+                coalesced.increment();
+                return entry.inFlight.copy();
+            }
+            misses.increment();
+            // Not entry.inFlight: a request that is already complete has cleared the slot by now
+            return load(city, entry).copy();
+        }
+    }
+
+    // Caller holds the entry's lock; returns the started request
+    private CompletableFuture<WeatherReading> load(String city, Entry entry) {
+        CompletableFuture<WeatherReading> request;
+        try {
+            request = delegate.fetch(city);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<WeatherReading> started = request;
+        entry.inFlight = started;
+        // Step 4: Cache only successes; always clear the in-flight slot
+        started.whenComplete((reading, error) -> {
+            synchronized (entry) {
+                if (error == null) {
+                    entry.value = reading;
+                    entry.fetchedAt = clock.getAsLong();
+                }
+                if (entry.inFlight == started) entry.inFlight = null;
+            }
+        });
+        return started;
+    }
+
+    /** Drops every cached reading; requests in flight still complete for their callers. */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long staleHits() { return staleHits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long coalesced() { return coalesced.sum(); }
+    public long refreshes() { return refreshes.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    /** One-line counter summary for the status bar. */
+    public String summary() {
+        return String.format("Cache: %d hits (%d stale) | %d misses | %d coalesced | %d evicted",
+            hits() + staleHits(), staleHits(), misses(), coalesced(), evictions());
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Manual source: every fetch is counted and left pending until the test completes it
+        AtomicInteger calls = new AtomicInteger();
+        List<CompletableFuture<WeatherReading>> pending = new ArrayList<>();
+        WeatherSource manual = city -> {
+            calls.incrementAndGet();
+            CompletableFuture<WeatherReading> f = new CompletableFuture<>();
+            synchronized (pending) {
+                pending.add(f);
+            }
+            return f;
+        };
+        long[] now = {0};
+        CachingWeatherSource cache = new CachingWeatherSource(manual, Duration.ofMinutes(5), Duration.ofMinutes(10), 100,
+            () -> now[0]);
+
+        // TEST CASE 1: 100 concurrent callers for one city share a single request
+        List<CompletableFuture<WeatherReading>> callers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) callers.add(cache.fetch("Kathmandu"));
+        pending.get(0).complete(new WeatherReading("Kathmandu", 22.0, 65, 1));
+        int served = 0;
+        for (CompletableFuture<WeatherReading> f : callers) if (f.join().getTemperature() == 22.0) served++;
+        System.out.println("Test Case 1 Output: " + served + " callers served by " + calls.get() + " request ("
+            + cache.misses() + " miss, " + cache.coalesced() + " coalesced)");
+
+        // TEST CASE 2: Fresh at 4 min, stale-but-served at 6 min (one refresh), expired at 16 min
+        now[0] = Duration.ofMinutes(4).toNanos();
+        boolean fresh = cache.fetch("Kathmandu").isDone();
+        now[0] = Duration.ofMinutes(6).toNanos();
+        double stale = cache.fetch("Kathmandu").join().getTemperature();
+        cache.fetch("Kathmandu"); // Second stale read must not start another refresh
+        int afterStale = calls.get();
+        pending.get(1).complete(new WeatherReading("Kathmandu", 24.0, 60, 1));
+        double refreshed = cache.fetch("Kathmandu").join().getTemperature();
+        now[0] = Duration.ofMinutes(22).toNanos();
+        CompletableFuture<WeatherReading> expired = cache.fetch("Kathmandu");
+        System.out.println("Test Case 2 Output: 4 min " + (fresh ? "hit" : "miss") + " | 6 min stale " + stale
+            + "°C served, " + (afterStale - 1) + " refresh started | after refresh " + refreshed + "°C | 22 min "
+            + (expired.isDone() ? "served stale (wrong)" : "waits for a new request"));
+        pending.get(2).complete(new WeatherReading("Kathmandu", 19.0, 70, 1));
+
+        // TEST CASE 3: A failed load fails its callers and is not cached
+        CompletableFuture<WeatherReading> first = cache.fetch("Pokhara"), second = cache.fetch("Pokhara");
+        pending.get(3).completeExceptionally(new IOException("HTTP 503"));
+        int failed = 0;
+        for (CompletableFuture<WeatherReading> f : List.of(first, second)) {
+            try { f.join(); } catch (CompletionException e) { failed++; }
+        }
+        int before = calls.get();
+        cache.fetch("Pokhara");
+        System.out.println("Test Case 3 Output: " + failed + "/2 callers failed, next call sent "
+            + (calls.get() - before) + " new request");
+
+        // TEST CASE 4: 1,000 cities through a 100-entry cache
+        for (int i = 0; i < 1000; i++) cache.fetch("City-" + i);
+        System.out.println("Test Case 4 Output: size " + cache.size() + ", " + cache.evictions() + " evicted | "
+            + cache.summary());
+
+        // TEST CASE 5: 3,000 stations twice against a 50 ms stub, through the cache
+        try (StubWeatherServer stub = new StubWeatherServer(0, 50, 0, 0);
+             HttpWeatherSource http = HttpWeatherSource.async(stub.uri(), 500, Duration.ofSeconds(5), 1)) {
+            CachingWeatherSource cached = new CachingWeatherSource(http, Duration.ofMinutes(5), Duration.ofMinutes(10), 10_000);
+            long[] ms = new long[2];
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                CompletableFuture<?>[] all = new CompletableFuture<?>[6000];
+                for (int i = 0; i < 6000; i++) all[i] = cached.fetch("Station-" + (i % 3000)); // Every station asked twice
+                CompletableFuture.allOf(all).join();
+                ms[round] = (System.nanoTime() - start) / 1_000_000;
+            }
+            System.out.println("Test Case 5 Output: cold round " + ms[0] + " ms, warm round " + ms[1] + " ms | "
+                + stub.requests() + " requests for 12,000 lookups | " + cached.summary());
+        }
+
+        // TEST CASE 6: A delegate that answers synchronously (already-completed future) is cached on the first call
+        AtomicInteger syncCalls = new AtomicInteger();
+        CachingWeatherSource sync = new CachingWeatherSource(city -> {
+            syncCalls.incrementAndGet();
+            return CompletableFuture.completedFuture(new WeatherReading(city, 18.5, 70, 1));
+        }, Duration.ofMinutes(5), Duration.ofMinutes(10), 100);
+        double firstTemp = sync.fetch("Pokhara").join().getTemperature();
+        sync.fetch("Pokhara").join();
+        System.out.println("Test Case 6 Output: " + firstTemp + "°C, " + syncCalls.get() + " delegate call for 2 lookups | "
+            + sync.summary());
+
+        // TEST CASE 7: A delegate that throws (e.g. a closed HttpWeatherSource) gives a failed future, not an exception
+        CachingWeatherSource throwing = new CachingWeatherSource(city -> {
+            throw new RejectedExecutionException("source closed");
+        }, Duration.ofMinutes(5), Duration.ofMinutes(10), 100);
+        CompletableFuture<WeatherReading> rejected = throwing.fetch("Pokhara");
+        String outcome;
+        try {
+            rejected.join();
+            outcome = "unexpected success";
+        } catch (CompletionException e) {
+            outcome = "failed future with " + e.getCause().getClass().getSimpleName();
+        }
+        System.out.println("Test Case 7 Output: " + outcome + ", " + throwing.size() + " entry, next call "
+            + (throwing.fetch("Pokhara").isCompletedExceptionally() ? "fails again (not cached)" : "cached (wrong)"));
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 100 callers served by 1 request (1 miss, 99 coalesced)
+ * Test Case 2 Output: 4 min hit | 6 min stale 22.0°C served, 1 refresh started | after refresh 24.0°C | 22 min waits for a new request
+ * Test Case 3 Output: 2/2 callers failed, next call sent 1 new request
+ * Test Case 4 Output: size 100, 902 evicted | Cache: 4 hits (2 stale) | 1004 misses | 100 coalesced | 902 evicted
+ * Test Case 5 Output: cold round 6156 ms, warm round 12 ms | 3000 requests for 12,000 lookups | Cache: 6000 hits (0 stale) | 3000 misses | 3000 coalesced | 0 evicted
+ * Test Case 6 Output: 18.5°C, 1 delegate call for 2 lookups | Cache: 1 hits (0 stale) | 1 misses | 0 coalesced | 0 evicted
+ * Test Case 7 Output: failed future with RejectedExecutionException, 1 entry, next call fails again (not cached)
+ * (Counters in Test Case 4 include the earlier cases.)
+ * -----------------------------------------------------------
+ */
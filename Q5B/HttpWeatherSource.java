@@ -0,0 +1,360 @@
+package Q5B;
+
+// Algorithm Description (Algorithm Design)
+// A raw Thread per city plus a CountDownLatch works for 5 cities but not for the 3,000 stations we poll: each platform
+// thread reserves its own stack, and nothing limits how many requests hit the server at once. HttpWeatherSource fetches
+// with HttpClient.sendAsync, so a request in flight holds a socket and a future, not a thread.
+
+// Step 1: Executor: HttpClient runs its completion callbacks on a small executor. On a JDK with virtual threads this is
+// Executors.newVirtualThreadPerTaskExecutor() (found by reflection, so the class still compiles and runs on JDK 17).
+// Without virtual threads it is a fixed pool of max(2, cores) daemon threads. Either way the thread count does not grow
+// with the number of stations, because nothing ever blocks on a response.
+// Step 2: Concurrency Limit: A Semaphore of maxConcurrent permits is taken without blocking. Requests that find no permit
+// wait in a lock-free queue, and every completed request releases its permit and starts the next queued one. Any number
+// of stations can be queued, but at most maxConcurrent requests are in flight, and backoff delays hold no permit.
+// Step 3: Timeout: Every request carries HttpRequest.timeout, so a hung server fails the attempt instead of the station.
+// Step 4: Retries: Timeouts, I/O errors and 5xx answers are retried up to `retries` times with linear backoff, scheduled
+// with CompletableFuture.delayedExecutor. 4xx answers are final. After the last attempt the future completes
+// exceptionally with the last error.
+// Step 5: Parsing: The stub's flat JSON is read with indexOf, so no JSON library is needed.
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector (HTTP Source)
+ * Non-blocking HttpClient fetches with a concurrency limit, per-request timeouts and retries.
+ */
+public class HttpWeatherSource implements WeatherSource, AutoCloseable {
+    private static final long BACKOFF_MILLIS = 50;
+
+    private final URI base;
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<Attempt> waiting = new ConcurrentLinkedQueue<>();
+    private final Duration timeout;
+    private final int retries;
+    private final String description;
+    private volatile boolean closed;
+
+    // One try at one station, waiting for a permit
+    private static final class Attempt {
+        final String city;
+        final HttpRequest request;
+        final int number;
+        final CompletableFuture<WeatherReading> result;
+
+        Attempt(String city, HttpRequest request, int number, CompletableFuture<WeatherReading> result) {
+            this.city = city;
+            this.request = request;
+            this.number = number;
+            this.result = result;
+        }
+    }
+
+    /** HttpClient callbacks run on the given executor, which close() shuts down. Callbacks must not block. */
+    public HttpWeatherSource(URI base, ExecutorService executor, String description, int maxConcurrent,
+                             Duration timeout, int retries) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        if (retries < 0) throw new IllegalArgumentException("retries must be non-negative");
+        this.base = base;
+        this.executor = executor;
+        this.description = description;
+        this.permits = new Semaphore(maxConcurrent);
+        this.timeout = timeout;
+        this.retries = retries;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .executor(executor)
+            .build();
+    }
+
+    /** Step 1: Callbacks on virtual threads when available, otherwise on max(2, cores) platform threads. */
+    public static HttpWeatherSource async(URI base, int maxConcurrent, Duration timeout, int retries) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) return new HttpWeatherSource(base, virtual, "async, virtual threads", maxConcurrent, timeout, retries);
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return new HttpWeatherSource(base, Executors.newFixedThreadPool(threads, daemonThreads("weather-http")),
+            "async, " + threads + " platform threads", maxConcurrent, timeout, retries);
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor() on JDK 21+, or null when this JDK has no virtual threads. */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // JDK 17, or JDK 19/20 without --enable-preview
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Which executor the callbacks run on. */
+    public String description() { return description; }
+
+    @Override
+    public CompletableFuture<WeatherReading> fetch(String city) {
+        CompletableFuture<WeatherReading> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("HttpWeatherSource is closed"));
+            return result;
+        }
+        HttpRequest request = HttpRequest.newBuilder(
+                base.resolve("weather?city=" + URLEncoder.encode(city, StandardCharsets.UTF_8)))
+            .timeout(timeout) // Step 3
+            .GET()
+            .build();
+        enqueue(new Attempt(city, request, 1, result));
+        return result;
+    }
+
+    // Step 2: Queue first, then start whatever the free permits allow. Whoever frees a permit drains again, so a queued
+    // attempt is never stranded
+    private void enqueue(Attempt attempt) {
+        waiting.add(attempt);
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Attempt next = waiting.poll();
+            if (next == null) permits.release();
+            else send(next);
+        }
+    }
+
+    // Caller holds a permit for the attempt
+    private void send(Attempt attempt) {
+        if (closed) {
+            permits.release();
+            attempt.result.completeExceptionally(new RejectedExecutionException("HttpWeatherSource is closed"));
+            return;
+        }
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = client.sendAsync(attempt.request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((r, error) -> {
+            permits.release();
+            complete(attempt, r, error);
+            drain();
+        });
+    }
+
+    // Step 4: Retry I/O errors and 5xx, fail fast on anything else
+    private void complete(Attempt attempt, HttpResponse<String> response, Throwable error) {
+        IOException failure;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof IOException)) {
+                attempt.result.completeExceptionally(cause);
+                return;
+            }
+            failure = (IOException) cause;
+        } else if (response.statusCode() == 200) {
+            try {
+                attempt.result.complete(parse(attempt.city, response.body(), attempt.number));
+            } catch (UncheckedIOException e) {
+                attempt.result.completeExceptionally(e);
+            }
+            return;
+        } else {
+            failure = new IOException(attempt.city + ": HTTP " + response.statusCode());
+            if (response.statusCode() < 500) {
+                attempt.result.completeExceptionally(new UncheckedIOException(failure));
+                return;
+            }
+        }
+        if (attempt.number <= retries && !closed) {
+            Attempt retry = new Attempt(attempt.city, attempt.request, attempt.number + 1, attempt.result);
+            CompletableFuture.delayedExecutor(BACKOFF_MILLIS * attempt.number, TimeUnit.MILLISECONDS)
+                .execute(() -> enqueue(retry));
+        } else {
+            attempt.result.completeExceptionally(new UncheckedIOException(failure));
+        }
+    }
+
+    // Step 5: {"city":"X","temp":T,"humidity":H}
+    static WeatherReading parse(String city, String json, int attempts) {
+        try {
+            return new WeatherReading(city, Double.parseDouble(field(json, "temp")),
+                Integer.parseInt(field(json, "humidity")), attempts);
+        } catch (RuntimeException e) {
+            throw new UncheckedIOException(new IOException(city + ": bad response " + json, e));
+        }
+    }
+
+    private static String field(String json, String name) {
+        String key = "\"" + name + "\":";
+        int start = json.indexOf(key) + key.length();
+        if (start < key.length()) throw new IllegalArgumentException("missing " + name);
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') end++;
+        return json.substring(start, end).trim();
+    }
+
+    /** Fails every queued fetch and every later one. Requests already in flight still complete. */
+    @Override
+    public void close() {
+        closed = true;
+        Attempt queued;
+        while ((queued = waiting.poll()) != null) {
+            queued.result.completeExceptionally(new RejectedExecutionException("HttpWeatherSource is closed"));
+        }
+        executor.shutdown();
+    }
+
+    // Fetches every station and returns the elapsed wall time in milliseconds
+    private static long fetchAll(WeatherSource source, String[] stations) {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[stations.length];
+        for (int i = 0; i < stations.length; i++) pending[i] = source.fetch(stations[i]);
+        CompletableFuture.allOf(pending).join();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static String[] stations(int n) {
+        String[] stations = new String[n];
+        for (int i = 0; i < n; i++) stations[i] = "Station-" + (i + 1);
+        return stations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration timeout = Duration.ofSeconds(5);
+
+        // TEST CASE 1: The five cities against a stub with 50 ms latency
+        try (StubWeatherServer stub = new StubWeatherServer(0, 50, 0, 0);
+             HttpWeatherSource source = async(stub.uri(), 16, timeout, 2)) {
+            String[] cities = {"Kathmandu", "Pokhara", "Biratnagar", "Nepalgunj", "Dhangadhi"};
+            StringBuilder out = new StringBuilder();
+            for (String city : cities) out.append(out.length() == 0 ? "" : " | ").append(source.fetch(city).join());
+            System.out.println("Test Case 1 Output: " + out + " (" + source.description() + ")");
+        }
+
+        // TEST CASE 2: 30% of requests answer 503; up to 3 retries recover them
+        try (StubWeatherServer stub = new StubWeatherServer(0, 5, 0, 0.3);
+             HttpWeatherSource source = async(stub.uri(), 32, timeout, 3)) {
+            String[] stations = stations(500);
+            List<CompletableFuture<WeatherReading>> pending = new ArrayList<>();
+            for (String station : stations) pending.add(source.fetch(station));
+            int ok = 0, retried = 0;
+            for (CompletableFuture<WeatherReading> f : pending) {
+                try {
+                    WeatherReading r = f.join();
+                    ok++;
+                    if (r.getAttempts() > 1) retried++;
+                } catch (CompletionException e) {
+                    // Out of retries; counted by omission
+                }
+            }
+            System.out.println("Test Case 2 Output: " + ok + "/500 succeeded (" + retried + " after a retry), "
+                + stub.requests() + " requests sent");
+        }
+
+        // TEST CASE 3: A server slower than the 200 ms timeout; one retry, then a timeout error
+        try (StubWeatherServer stub = new StubWeatherServer(0, 1000, 0, 0);
+             HttpWeatherSource source = async(stub.uri(), 4, Duration.ofMillis(200), 1)) {
+            long start = System.nanoTime();
+            try {
+                source.fetch("Kathmandu").join();
+                System.out.println("Test Case 3 Output: unexpected success");
+            } catch (CompletionException e) {
+                System.out.println("Test Case 3 Output: failed after " + (System.nanoTime() - start) / 1_000_000 + " ms with "
+                    + e.getCause().getCause().getClass().getSimpleName() + ", " + stub.requests() + " requests sent");
+            }
+        }
+
+        // TEST CASE 4: 3,000 stations at 100 ms latency: sequential vs a blocking platform thread per request (64 threads)
+        // vs the async engine with 1,000 in flight
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try (StubWeatherServer stub = new StubWeatherServer(0, 100, 0, 0);
+             HttpWeatherSource source = async(stub.uri(), 1000, timeout, 0)) {
+            String[] stations = stations(3000);
+            fetchAll(source, stations(1000)); // JIT and connection warmup
+
+            int sample = 50;
+            long start = System.nanoTime();
+            for (int i = 0; i < sample; i++) source.fetch(stations[i]).join();
+            long seqMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Test Case 4 Output: sequential               %5.0f req/s (%d stations in %d ms, 3,000 would take ~%d s)%n",
+                sample * 1000.0 / seqMs, sample, seqMs, seqMs * stations.length / sample / 1000);
+
+            ExecutorService pool = Executors.newFixedThreadPool(64, daemonThreads("weather-blocking"));
+            threads.resetPeakThreadCount();
+            start = System.nanoTime();
+            CompletableFuture<?>[] blocking = new CompletableFuture<?>[stations.length];
+            for (int i = 0; i < stations.length; i++) {
+                String station = stations[i];
+                blocking[i] = CompletableFuture.runAsync(() -> source.fetch(station).join(), pool);
+            }
+            CompletableFuture.allOf(blocking).join();
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            pool.shutdown();
+            System.out.printf("                    blocking, 64 platform threads %5.0f req/s (3,000 stations in %d ms, peak %d JVM threads)%n",
+                stations.length * 1000.0 / ms, ms, threads.getPeakThreadCount());
+
+            threads.resetPeakThreadCount();
+            ms = fetchAll(source, stations);
+            System.out.printf("                    %-29s %5.0f req/s (3,000 stations in %d ms, at most 1,000 in flight, peak %d JVM threads)%n",
+                source.description(), stations.length * 1000.0 / ms, ms, threads.getPeakThreadCount());
+        }
+
+        // TEST CASE 5: After close(), fetch returns a failed future instead of throwing
+        HttpWeatherSource closed = async(URI.create("http://127.0.0.1:9/"), 4, timeout, 0);
+        closed.close();
+        CompletableFuture<WeatherReading> late = closed.fetch("Kathmandu");
+        try {
+            late.join();
+            System.out.println("Test Case 5 Output: unexpected success");
+        } catch (CompletionException e) {
+            System.out.println("Test Case 5 Output: failed future with " + e.getCause().getClass().getSimpleName());
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: Kathmandu 9.1°C 81% | Pokhara 21.8°C 43% | Biratnagar 8.9°C 82% | Nepalgunj 21.2°C 50% | Dhangadhi 12.8°C 82% (async, 2 platform threads)
+ * Test Case 2 Output: 498/500 succeeded (154 after a retry), 711 requests sent
+ * Test Case 3 Output: failed after 456 ms with HttpTimeoutException, 2 requests sent
+ * Test Case 4 Output: sequential                  10 req/s (50 stations in 5169 ms, 3,000 would take ~310 s)
+ *                     blocking, 64 platform threads   513 req/s (3,000 stations in 5853 ms, peak 90 JVM threads)
+ *                     async, 2 platform threads      1136 req/s (3,000 stations in 2641 ms, at most 1,000 in flight, peak 26 JVM threads)
+ * Test Case 5 Output: failed future with RejectedExecutionException
+ * (JDK 17: no virtual threads, so async() runs callbacks on 2 platform threads; on JDK 21 the same call uses virtual
+ * threads. The thread count stays flat with 1,000 requests in flight, since no thread waits on a response. The stub
+ * server runs in the same JVM and shares the one core, which is what caps the async run.)
+ * -----------------------------------------------------------
+ */
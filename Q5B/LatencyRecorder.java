@@ -0,0 +1,357 @@
+package Q5B;
+
+// Algorithm Description (Algorithm Design)
+// Two System.currentTimeMillis() deltas and a speedup figure hide what actually hurts: the slow tail and the cities that
+// are always slow. LatencyRecorder keeps a log-bucketed histogram of System.nanoTime() latencies for every fetch, overall,
+// per strategy and per city.
+
+// Step 1: Buckets: A latency v in nanoseconds maps to a bucket by its highest set bit plus the next 4 bits, i.e. 16 linear
+// sub-buckets per power of two. Every bucket is within 1/16 (6.25%) of the values it holds, and 960 buckets cover 0 ns to
+// beyond 100 years. The index is computed with shifts and numberOfLeadingZeros, without logarithms. Per-city histograms
+// use only the next 2 bits (4 sub-buckets, within 25%): 248 counters, about 2 KB each instead of 7.7 KB, so 3,000 stations
+// cost about 6 MB. The overall and per-strategy histograms keep the fine buckets.
+// Step 2: Recording: record() increments one AtomicLongArray slot and updates count, sum, max, first start and last end
+// with atomics. It allocates nothing and takes no lock, so fetch threads can record concurrently. Histograms for known
+// strategies and cities are found with a ConcurrentHashMap.get; only a city's first fetch creates its histogram.
+// Step 3: Percentiles: p-th percentile = upper edge of the bucket holding the ceil(p * count)-th smallest value, capped
+// at the recorded max. This is one pass over the 960 counters.
+// Step 4: Throughput: count / (last end - first start), i.e. completed fetches per second of wall time covered.
+// Step 5: Export: writeCsv writes one summary row per histogram (overall, strategies, cities). Numbers are formatted
+// with Locale.ROOT, so the file has the same columns whatever the default locale is.
+// Step 6: JFR: FetchEvent is a jdk.jfr.Event committed once per fetch, so a flight recording shows each fetch with its
+// city, strategy, outcome, cache hit flag and duration next to GC and thread activity. Callers record cache hits under
+// their own strategy name so they never mix with the latencies of real fetches.
+
+import com.sun.management.ThreadMXBean;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector (Latency Recorder)
+ * Allocation-free log-bucketed latency histograms per fetch, strategy and city, with CSV export and JFR events.
+ */
+public class LatencyRecorder {
+    private static final int SUB_BITS = 4, CITY_SUB_BITS = 2;
+
+    /** One latency distribution. All methods are thread-safe. */
+    public static final class Histogram {
+        private final int subBits, sub;
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong(), sum = new AtomicLong(), max = new AtomicLong();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE), lastEnd = new AtomicLong(Long.MIN_VALUE);
+
+        /** Fine buckets: within 6.25%. */
+        public Histogram() { this(SUB_BITS); }
+
+        Histogram(int subBits) {
+            this.subBits = subBits;
+            this.sub = 1 << subBits;
+            this.counts = new AtomicLongArray((64 - subBits) * sub);
+        }
+
+        // Step 1: Highest set bit picks the power of two, the next subBits bits the sub-bucket
+        int bucket(long nanos) {
+            if (nanos < sub) return (int) Math.max(nanos, 0);
+            int shift = 63 - Long.numberOfLeadingZeros(nanos) - subBits;
+            return (shift + 1) * sub + (int) ((nanos >>> shift) & (sub - 1));
+        }
+
+        // Largest value that maps to the bucket
+        long upperEdge(int bucket) {
+            if (bucket < sub) return bucket;
+            int shift = bucket / sub - 1;
+            long low = (long) (sub + bucket % sub) << shift;
+            return low + (1L << shift) - 1;
+        }
+
+        /** Number of bucket counters; 960 for fine buckets, 248 for per-city ones. */
+        public int buckets() { return counts.length(); }
+
+        /** Step 2: Records one fetch that ran from startNanos to endNanos (System.nanoTime values). */
+        public void record(long startNanos, long endNanos) {
+            long nanos = Math.max(endNanos - startNanos, 0);
+            counts.incrementAndGet(bucket(nanos));
+            count.incrementAndGet();
+            sum.addAndGet(nanos);
+            long m;
+            while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) { }
+            while (startNanos < (m = firstStart.get()) && !firstStart.compareAndSet(m, startNanos)) { }
+            while (endNanos > (m = lastEnd.get()) && !lastEnd.compareAndSet(m, endNanos)) { }
+        }
+
+        public long count() { return count.get(); }
+        public long maxNanos() { return max.get(); }
+        public double meanNanos() { long n = count.get(); return n == 0 ? 0 : (double) sum.get() / n; }
+
+        /** Step 3: Latency at quantile q (0..1) in nanoseconds, within 1/2^subBits above the true value; 0 when empty. */
+        public long percentileNanos(double q) {
+            long n = count.get();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n)), seen = 0;
+            for (int b = 0; b < counts.length(); b++) {
+                seen += counts.get(b);
+                if (seen >= rank) return Math.min(upperEdge(b), max.get());
+            }
+            return max.get();
+        }
+
+        /** Step 4: Fetches completed per second between the first start and the last end. */
+        public double throughputPerSecond() {
+            long n = count.get(), span = lastEnd.get() - firstStart.get();
+            return n == 0 || span <= 0 ? 0 : n * 1e9 / span;
+        }
+
+        void reset() {
+            for (int b = 0; b < counts.length(); b++) counts.set(b, 0);
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+            firstStart.set(Long.MAX_VALUE);
+            lastEnd.set(Long.MIN_VALUE);
+        }
+
+        /** "n=5 p50 1002 ms p95 1010 ms p99 1010 ms max 1012 ms | 4.9/s" */
+        public String summary() {
+            return String.format("n=%d p50 %s p95 %s p99 %s max %s | %.1f/s", count(), millis(percentileNanos(0.50)),
+                millis(percentileNanos(0.95)), millis(percentileNanos(0.99)), millis(maxNanos()), throughputPerSecond());
+        }
+
+        private static String millis(long nanos) {
+            return nanos >= 10_000_000 ? nanos / 1_000_000 + " ms" : String.format("%.2f ms", nanos / 1e6);
+        }
+    }
+
+    /** Step 6: One weather fetch, with its duration from begin() to end(). */
+    @Name("Q5B.WeatherFetch")
+    @Label("Weather Fetch")
+    @Category({"Weather Collector"})
+    @Description("One city fetched through the weather source")
+    public static class FetchEvent extends Event {
+        @Label("City") public String city;
+        @Label("Strategy") public String strategy;
+        @Label("Success") public boolean success;
+        @Label("Attempts") public int attempts;
+        @Label("Cache Hit") @Description("Answered from the cache without a request") public boolean cacheHit;
+    }
+
+    private final Histogram all = new Histogram();
+    private final Map<String, Histogram> byStrategy = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> byCity = new ConcurrentHashMap<>();
+
+    /** Records one fetch overall, for its strategy and for its city. */
+    public void record(String strategy, String city, long startNanos, long endNanos) {
+        all.record(startNanos, endNanos);
+        histogram(byStrategy, strategy).record(startNanos, endNanos);
+        histogram(byCity, city, CITY_SUB_BITS).record(startNanos, endNanos);
+    }
+
+    private static Histogram histogram(Map<String, Histogram> map, String key) {
+        return histogram(map, key, SUB_BITS);
+    }
+
+    private static Histogram histogram(Map<String, Histogram> map, String key, int subBits) {
+        Histogram h = map.get(key); // Steady state: no allocation
+        return h != null ? h : map.computeIfAbsent(key, k -> new Histogram(subBits));
+    }
+
+    public Histogram overall() { return all; }
+
+    /** The strategy's histogram, or an empty one if it has not recorded yet. */
+    public Histogram strategy(String strategy) {
+        Histogram h = byStrategy.get(strategy);
+        return h != null ? h : new Histogram();
+    }
+
+    public Histogram city(String city) {
+        Histogram h = byCity.get(city);
+        return h != null ? h : new Histogram(CITY_SUB_BITS);
+    }
+
+    /** Clears every histogram (e.g. before a new comparison run). Recording may continue concurrently. */
+    public void reset() {
+        all.reset();
+        byStrategy.values().forEach(Histogram::reset);
+        byCity.values().forEach(Histogram::reset);
+    }
+
+    /** Step 5: scope,name,count,p50_ms,p95_ms,p99_ms,max_ms,mean_ms,throughput_per_s; cities sorted by p99, slowest first. */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("scope,name,count,p50_ms,p95_ms,p99_ms,max_ms,mean_ms,throughput_per_s\n");
+        row(out, "all", "all", all);
+        for (Map.Entry<String, Histogram> e : byStrategy.entrySet()) row(out, "strategy", e.getKey(), e.getValue());
+        List<Map.Entry<String, Histogram>> cities = new ArrayList<>(byCity.entrySet());
+        cities.sort((a, b) -> Long.compare(b.getValue().percentileNanos(0.99), a.getValue().percentileNanos(0.99)));
+        for (Map.Entry<String, Histogram> e : cities) row(out, "city", e.getKey(), e.getValue());
+        out.flush();
+    }
+
+    private static void row(Writer out, String scope, String name, Histogram h) throws IOException {
+        // Locale.ROOT: a comma-decimal default locale would split every number into two columns
+        out.write(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.2f\n", scope, csv(name), h.count(),
+            h.percentileNanos(0.50) / 1e6, h.percentileNanos(0.95) / 1e6, h.percentileNanos(0.99) / 1e6,
+            h.maxNanos() / 1e6, h.meanNanos() / 1e6, h.throughputPerSecond()));
+    }
+
+    private static String csv(String s) {
+        return s.indexOf(',') < 0 && s.indexOf('"') < 0 ? s : "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    public static void main(String[] args) throws Exception {
+        // TEST CASE 1: 100,000 latencies (log-normal around 20 ms) vs. exact sorted percentiles
+        Random rng = new Random(25);
+        long[] values = new long[100_000];
+        Histogram h = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (20e6 * Math.exp(rng.nextGaussian() * 0.6));
+            h.record(0, values[i]);
+        }
+        Arrays.sort(values);
+        StringBuilder out = new StringBuilder();
+        double worst = 0;
+        double[] quantiles = {0.50, 0.95, 0.99, 0.999};
+        String[] names = {"p50", "p95", "p99", "p99.9"};
+        for (int i = 0; i < quantiles.length; i++) {
+            long exact = values[(int) Math.ceil(quantiles[i] * values.length) - 1], got = h.percentileNanos(quantiles[i]);
+            worst = Math.max(worst, Math.abs(got - exact) / (double) exact);
+            out.append(String.format("%s %.2f/%.2f ms  ", names[i], got / 1e6, exact / 1e6));
+        }
+        System.out.println("Test Case 1 Output: (histogram/exact) " + out + String.format("| worst error %.2f%%", worst * 100));
+
+        // TEST CASE 2: 1,000,000 record() calls on a warm recorder allocate nothing
+        LatencyRecorder recorder = new LatencyRecorder();
+        String[] cities = {"Kathmandu", "Pokhara", "Biratnagar", "Nepalgunj", "Dhangadhi"};
+        for (int i = 0; i < 200_000; i++) recorder.record("Parallel", cities[i % 5], 0, 1_000_000 + i); // Warmup / JIT
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(self);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) recorder.record("Parallel", cities[i % 5], 0, 1_000_000 + i);
+        long nanosPer = (System.nanoTime() - start) / 1_000_000;
+        long allocated = threads.getThreadAllocatedBytes(self) - before;
+        System.out.println("Test Case 2 Output: 1,000,000 records, " + allocated + " bytes allocated, ~" + nanosPer
+            + " ns per record (3 histograms each)");
+
+        // TEST CASE 3: 8 threads x 250,000 concurrent records lose nothing
+        recorder.reset();
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 250_000; i++) recorder.record("Parallel", cities[i % 5], i, i + 5_000_000);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.println("Test Case 3 Output: overall n=" + recorder.overall().count() + ", Kathmandu n="
+            + recorder.city("Kathmandu").count() + ", p99 " + recorder.overall().percentileNanos(0.99) / 1_000_000 + " ms");
+
+        // TEST CASE 4: Sequential vs parallel against a 50 ms stub (with 20 ms jitter), CSV export and JFR events
+        recorder.reset();
+        Path jfr = Files.createTempFile("weather-fetch", ".jfr");
+        try (Recording recording = new Recording();
+             StubWeatherServer stub = new StubWeatherServer(0, 50, 20, 0);
+             HttpWeatherSource source = HttpWeatherSource.async(stub.uri(), 64, Duration.ofSeconds(5), 1)) {
+            recording.enable(FetchEvent.class);
+            recording.start();
+            String[] stations = new String[200];
+            for (int i = 0; i < stations.length; i++) stations[i] = "Station-" + (i + 1);
+            for (String strategy : new String[]{"Sequential", "Parallel"}) {
+                List<CompletableFuture<?>> pending = new ArrayList<>();
+                for (String station : stations) {
+                    FetchEvent event = new FetchEvent();
+                    event.begin();
+                    long t0 = System.nanoTime();
+                    CompletableFuture<?> f = source.fetch(station).whenComplete((reading, error) -> {
+                        recorder.record(strategy, station, t0, System.nanoTime());
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.city = station;
+                            event.strategy = strategy;
+                            event.success = error == null;
+                            event.attempts = error == null ? reading.getAttempts() : 0;
+                            event.commit();
+                        }
+                    });
+                    if (strategy.equals("Sequential")) f.join();
+                    pending.add(f);
+                }
+                for (CompletableFuture<?> f : pending) f.join();
+            }
+            recording.stop();
+            recording.dump(jfr);
+
+            int events = 0;
+            for (RecordedEvent e : RecordingFile.readAllEvents(jfr)) {
+                if (e.getEventType().getName().equals("Q5B.WeatherFetch")) events++;
+            }
+            System.out.println("Test Case 4 Output: Sequential " + recorder.strategy("Sequential").summary());
+            System.out.println("                    Parallel   " + recorder.strategy("Parallel").summary());
+            StringWriter csv = new StringWriter();
+            recorder.writeCsv(csv);
+            String[] lines = csv.toString().split("\n");
+            System.out.println("                    " + events + " JFR Q5B.WeatherFetch events | CSV " + lines.length
+                + " lines:");
+            for (int i = 0; i < 5; i++) System.out.println("                      " + lines[i]);
+        } finally {
+            Files.deleteIfExists(jfr);
+        }
+
+        // TEST CASE 5: CSV under a comma-decimal default locale keeps 9 columns; per-city histograms are coarse
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            StringWriter csv = new StringWriter();
+            recorder.writeCsv(csv);
+            boolean nineColumns = true;
+            for (String line : csv.toString().split("\n")) nineColumns &= line.split(",").length == 9;
+            System.out.println("Test Case 5 Output: de_DE CSV 9 columns on every line: " + nineColumns + " | buckets: overall "
+                + recorder.overall().buckets() + ", per city " + recorder.city("Station-1").buckets());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: (histogram/exact) p50 20.97/20.04 ms  p95 54.53/53.64 ms  p99 83.89/80.51 ms  p99.9 130.02/126.60 ms  | worst error 4.62%
+ * Test Case 2 Output: 1,000,000 records, 0 bytes allocated, ~371 ns per record (3 histograms each)
+ * Test Case 3 Output: overall n=2000000, Kathmandu n=400000, p99 5 ms
+ * Test Case 4 Output: Sequential n=200 p50 113 ms p95 130 ms p99 142 ms max 518 ms | 8.7/s
+ *                     Parallel   n=200 p50 436 ms p95 617 ms p99 617 ms max 617 ms | 309.1/s
+ *                     400 JFR Q5B.WeatherFetch events | CSV 209 lines:
+ *                       scope,name,count,p50_ms,p95_ms,p99_ms,max_ms,mean_ms,throughput_per_s
+ *                       all,all,400,130.023,603.980,617.676,617.676,255.303,17.01
+ *                       strategy,Parallel,200,436.208,617.676,617.676,617.676,396.866,309.14
+ *                       strategy,Sequential,200,113.246,130.023,142.606,518.477,113.740,8.75
+ *                       city,Station-184,2,100.663,617.676,617.676,617.676,358.799,0.81
+ * (Parallel latencies include time queued behind the 64-request limit. The sequential max is the first, cold
+ * connection.)
+ * Test Case 5 Output: de_DE CSV 9 columns on every line: true | buckets: overall 960, per city 248
+ * -----------------------------------------------------------
+ */
@@ -0,0 +1,132 @@
+package Q5B;
+
+// Algorithm Description (Algorithm Design)
+// simulateFetch only slept, so nothing measured real sockets, connection reuse or HTTP parsing. StubWeatherServer is a
+// local HTTP server that answers like a weather API after a configurable delay, so fetch strategies can be benchmarked
+// offline against real I/O.
+
+// Step 1: Endpoint: GET /weather?city=X returns {"city":"X","temp":T,"humidity":H}. The values are derived from the city
+// name, so the same city always gets the same reading. The body is formatted with Locale.ROOT, so "temp" always has a
+// decimal point (a comma-decimal locale would turn 21.8 into 21,8, which clients read as 21).
+// Step 2: Latency: Each request waits latencyMillis plus a random 0..jitterMillis before answering.
+// Step 3: Faults: With probability failureRate a request gets 503, which lets clients exercise their retry path.
+// Step 4: Concurrency: The handler only schedules the answer on a one-thread ScheduledExecutorService, so thousands of
+// requests can wait at once without a thread each, and the server's own thread count stays flat while clients are
+// benchmarked. The accept backlog is sized for thousands of connects.
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector (Stub Server)
+ * Local weather endpoint with configurable latency and failure rate.
+ */
+public class StubWeatherServer implements AutoCloseable {
+    private static final int BACKLOG = 4096;
+
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler;
+    private final long latencyMillis, jitterMillis;
+    private final double failureRate;
+    private final AtomicLong requests = new AtomicLong();
+
+    /** Starts listening on 127.0.0.1; port 0 picks a free port. */
+    public StubWeatherServer(int port, long latencyMillis, long jitterMillis, double failureRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.createContext("/weather", this::handle);
+        scheduler = Executors.newSingleThreadScheduledExecutor(HttpWeatherSource.daemonThreads("stub-weather"));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) {
+        requests.incrementAndGet();
+        // Step 2: Latency, without holding a thread
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        scheduler.schedule(() -> respond(exchange), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void respond(HttpExchange exchange) {
+        try {
+            // Step 3: Faults
+            String city = city(exchange.getRequestURI().getRawQuery());
+            if (city == null) {
+                reply(exchange, 400, "{\"error\":\"missing city\"}");
+            } else if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                reply(exchange, 503, "{\"error\":\"unavailable\"}");
+            } else {
+                // Step 1: Reading derived from the name
+                int h = city.hashCode();
+                double temp = 5 + Math.floorMod(h, 300) / 10.0;
+                int humidity = 30 + Math.floorMod(h >> 8, 60);
+                reply(exchange, 200, String.format(Locale.ROOT, "{\"city\":\"%s\",\"temp\":%.1f,\"humidity\":%d}",
+                    city.replace("\"", ""), temp, humidity));
+            }
+        } catch (IOException e) {
+            // Client went away; nothing to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String city(String query) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith("city=") && pair.length() > 5) {
+                return URLDecoder.decode(pair.substring(5), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Base URI, e.g. http://127.0.0.1:54321/ */
+    public URI uri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+
+    /** Requests received so far, including failed and retried ones. */
+    public long requests() { return requests.get(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+
+    /** Runs a standalone server: StubWeatherServer [port] [latencyMillis] [jitterMillis] [failureRate] */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        long jitter = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        double failures = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+        StubWeatherServer stub = new StubWeatherServer(port, latency, jitter, failures);
+        System.out.println("Stub weather server on " + stub.uri() + "weather?city=Kathmandu (latency " + latency
+            + " ms, jitter " + jitter + " ms, failure rate " + failures + ")");
+    }
+}
@@ -0,0 +1,30 @@
+package Q5B;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector
+ * One station's reading as returned by a WeatherSource.
+ */
+public final class WeatherReading {
+    final String city;
+    final double temperature;
+    final int humidity;
+    final int attempts;
+
+    public WeatherReading(String city, double temperature, int humidity, int attempts) {
+        this.city = city;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.attempts = attempts;
+    }
+
+    public String getCity() { return city; }
+    public double getTemperature() { return temperature; }
+    public int getHumidity() { return humidity; }
+    /** Requests it took, 1 when the first one succeeded. */
+    public int getAttempts() { return attempts; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.1f°C %d%%", city, temperature, humidity);
+    }
+}
@@ -0,0 +1,11 @@
+package Q5B;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector
+ * Where readings come from. fetch never blocks the caller; failures complete the future exceptionally.
+ */
+public interface WeatherSource {
+    CompletableFuture<WeatherReading> fetch(String city);
+}
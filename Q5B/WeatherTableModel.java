@@ -0,0 +1,202 @@
+package Q5B;
+
+// Algorithm Description (Algorithm Design)
+// Every result used to post its own invokeLater + DefaultTableModel.addRow: one EDT task, one table event and one repaint
+// per station, stored in a Vector of Vectors. With thousands of stations the EDT became the bottleneck. WeatherTableModel
+// batches results and keeps rows in parallel arrays.
+
+// Step 1: Producers: Fetch threads call offer(), which is one ConcurrentLinkedQueue.offer. It takes no lock and never
+// touches Swing.
+// Step 2: Drain: A javax.swing.Timer fires on the EDT every ~16 ms (one frame) and empties the queue in one go.
+// Step 3: In-Place Updates: A HashMap from city to row index finds a city that is already in the table, and its row is
+// overwritten instead of being cleared and re-added. New cities are appended to the arrays, which grow by doubling.
+// Step 4: One Event per Batch: A batch fires at most one fireTableRowsInserted over the appended range and one
+// fireTableRowsUpdated over the lowest..highest changed row, so the JTable repaints once per frame however many results
+// arrived.
+
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Question 5 (b): Multi-threaded Weather Data Collector (Table Model)
+ * Array-backed table model fed by a lock-free queue and drained once per frame on the EDT.
+ */
+public class WeatherTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"City", "Temp (°C)", "Humidity (%)", "Status"};
+    public static final int FRAME_MILLIS = 16;
+
+    private static final class Result {
+        final String city, status;
+        final double temperature;
+        final int humidity;
+
+        Result(String city, double temperature, int humidity, String status) {
+            this.city = city;
+            this.temperature = temperature;
+            this.humidity = humidity;
+            this.status = status;
+        }
+    }
+
+    private final transient ConcurrentLinkedQueue<Result> queue = new ConcurrentLinkedQueue<>();
+    private final transient Timer timer = new Timer(FRAME_MILLIS, e -> drain());
+
+    // Rows, EDT only
+    private String[] cities = new String[16], statuses = new String[16];
+    private double[] temperatures = new double[16]; // NaN when the fetch failed
+    private int[] humidities = new int[16];
+    private int rows;
+    private final Map<String, Integer> rowOf = new HashMap<>();
+
+    /** Step 1: Queues a successful reading; safe from any thread. */
+    public void offer(WeatherReading reading) {
+        queue.offer(new Result(reading.getCity(), reading.getTemperature(), reading.getHumidity(), "Success"));
+    }
+
+    /** Step 1: Queues a failure for the city's row; safe from any thread. */
+    public void offerFailure(String city, String status) {
+        queue.offer(new Result(city, Double.NaN, 0, status));
+    }
+
+    /** Step 2: Starts draining on the EDT every frame. */
+    public void start() { timer.start(); }
+
+    public void stop() { timer.stop(); }
+
+    /** Steps 2-4: Applies every queued result and fires at most one insert and one update event. EDT only. */
+    public int drain() {
+        int firstNew = rows, lowUpdated = Integer.MAX_VALUE, highUpdated = -1, applied = 0;
+        Result r;
+        while ((r = queue.poll()) != null) {
+            applied++;
+            Integer existing = rowOf.get(r.city);
+            int row;
+            if (existing != null) {
+                row = existing;
+                // Rows appended in this batch are covered by the insert event
+                if (row < firstNew) {
+                    lowUpdated = Math.min(lowUpdated, row);
+                    highUpdated = Math.max(highUpdated, row);
+                }
+            } else {
+                row = rows++;
+                if (row == cities.length) grow();
+                rowOf.put(r.city, row);
+                cities[row] = r.city;
+            }
+            temperatures[row] = r.temperature;
+            humidities[row] = r.humidity;
+            statuses[row] = r.status;
+        }
+        if (rows > firstNew) fireTableRowsInserted(firstNew, rows - 1);
+        if (highUpdated >= 0) fireTableRowsUpdated(lowUpdated, highUpdated);
+        return applied;
+    }
+
+    private void grow() {
+        int size = cities.length * 2;
+        cities = Arrays.copyOf(cities, size);
+        statuses = Arrays.copyOf(statuses, size);
+        temperatures = Arrays.copyOf(temperatures, size);
+        humidities = Arrays.copyOf(humidities, size);
+    }
+
+    /** Results queued but not yet drained. */
+    public int pending() { return queue.size(); }
+
+    @Override
+    public int getRowCount() { return rows; }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        boolean failed = Double.isNaN(temperatures[row]);
+        switch (column) {
+            case 0: return cities[row];
+            case 1: return failed ? "-" : String.format("%.1f°C", temperatures[row]);
+            case 2: return failed ? "-" : humidities[row] + "%";
+            default: return statuses[row];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        WeatherTableModel model = new WeatherTableModel();
+        AtomicInteger inserts = new AtomicInteger(), updates = new AtomicInteger();
+        model.addTableModelListener(e -> {
+            if (e.getType() == TableModelEvent.INSERT) inserts.incrementAndGet();
+            else updates.incrementAndGet();
+        });
+
+        // TEST CASE 1: 3,000 stations offered from 8 threads, then one drain
+        String[] stations = new String[3000];
+        for (int i = 0; i < stations.length; i++) stations[i] = "Station-" + (i + 1);
+        int producers = 8;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int t = 0; t < producers; t++) {
+            int from = t;
+            new Thread(() -> {
+                for (int i = from; i < stations.length; i += producers) {
+                    model.offer(new WeatherReading(stations[i], 20 + i % 10, 60, 1));
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        int applied = model.drain();
+        System.out.println("Test Case 1 Output: " + applied + " results -> " + model.getRowCount() + " rows, "
+            + inserts.get() + " insert event, " + updates.get() + " update events");
+
+        // TEST CASE 2: The same stations again (plus one failure) update in place: still 3,000 rows, one update event
+        for (int i = 0; i < stations.length; i++) model.offer(new WeatherReading(stations[i], 30, 55, 1));
+        model.offerFailure("Station-7", "Failed: HttpTimeoutException");
+        model.drain();
+        int row7 = -1, row8 = -1;
+        for (int r = 0; r < model.getRowCount(); r++) {
+            if ("Station-7".equals(model.getValueAt(r, 0))) row7 = r;
+            if ("Station-8".equals(model.getValueAt(r, 0))) row8 = r;
+        }
+        System.out.println("Test Case 2 Output: " + model.getRowCount() + " rows, " + inserts.get() + " insert, "
+            + updates.get() + " update event | Station-7: " + model.getValueAt(row7, 1) + " "
+            + model.getValueAt(row7, 3) + " | Station-8: " + model.getValueAt(row8, 1));
+
+        // TEST CASE 3: Events for 3,000 results: one per result (old path) vs one per drain
+        long start = System.nanoTime();
+        DefaultTableModel old = new DefaultTableModel(COLUMNS, 0);
+        AtomicInteger oldEvents = new AtomicInteger();
+        old.addTableModelListener(e -> oldEvents.incrementAndGet());
+        for (String s : stations) old.addRow(new Object[]{s, "22.0°C", "65%", "Success"});
+        long oldMicros = (System.nanoTime() - start) / 1000;
+        WeatherTableModel batched = new WeatherTableModel();
+        AtomicInteger newEvents = new AtomicInteger();
+        batched.addTableModelListener(e -> newEvents.incrementAndGet());
+        start = System.nanoTime();
+        for (String s : stations) batched.offer(new WeatherReading(s, 22, 65, 1));
+        batched.drain();
+        long newMicros = (System.nanoTime() - start) / 1000;
+        System.out.println("Test Case 3 Output: DefaultTableModel.addRow " + oldEvents.get() + " events in " + oldMicros
+            + " us | WeatherTableModel " + newEvents.get() + " event in " + newMicros + " us");
+    }
+}
+
+/* * OUTPUT (Testing & Validation):
+ * -----------------------------------------------------------
+ * Test Case 1 Output: 3000 results -> 3000 rows, 1 insert event, 0 update events
+ * Test Case 2 Output: 3000 rows, 1 insert, 1 update event | Station-7: - Failed: HttpTimeoutException | Station-8: 30.0°C
+ * Test Case 3 Output: DefaultTableModel.addRow 3000 events in 22080 us | WeatherTableModel 1 event in 5419 us
+ * (Headless: no JTable is attached, so the old path's 3,000 repaints are not even counted here.)
+ * -----------------------------------------------------------
+ */